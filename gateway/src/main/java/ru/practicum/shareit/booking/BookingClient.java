@@ -1,31 +1,58 @@
 package ru.practicum.shareit.booking;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.DownstreamGuards;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ServerProtocol;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String BASE_PATH = "/bookings";
 
+    private final RestTemplate streamRest;
+
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, DownstreamGuards guards,
+                         @Value("${shareit-server.protocol:JSON}") ServerProtocol protocol,
+                         RequestCoalescer coalescer,
+                         @Value("${shareit-server.stream.read-timeout:60s}") Duration streamReadTimeout) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + BASE_PATH))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                        .build()
+                        .requestFactory(HttpComponentsClientHttpRequestFactory.class)
+                        .build(),
+                guards.forRoute(BASE_PATH),
+                protocol,
+                coalescer
         );
+        this.streamRest = builder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + BASE_PATH))
+                .requestFactory(HttpComponentsClientHttpRequestFactory.class)
+                .setReadTimeout(streamReadTimeout)
+                .build();
     }
 
     public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
@@ -38,8 +65,8 @@ public class BookingClient extends BaseClient {
     }
 
 
-    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto, String idempotencyKey) {
+        return idempotentPost("", userId, idempotencyKey, requestDto);
     }
 
     public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
@@ -50,7 +77,55 @@ public class BookingClient extends BaseClient {
         return get("/owner", userId);
     }
 
-    public ResponseEntity<Object> approve(Long bookingId, boolean approved, Long userId) {
-        return patch("/" + bookingId + "?approved=" + approved, userId, null);
+    public ResponseEntity<Object> streamBookings(long userId, BookingState state, HttpServletResponse target) {
+        return pipe("?state={state}&stream=true", userId, Map.of("state", state.name()), target);
+    }
+
+    public ResponseEntity<Object> streamOwnedBookings(long userId, BookingState state, HttpServletResponse target) {
+        return pipe("/owner?state={state}&stream=true", userId, Map.of("state", state.name()), target);
+    }
+
+    public ResponseEntity<Object> exportOwnedBookings(long userId, String format, long after, String range,
+                                                      HttpServletResponse target) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.ALL));
+        if (range != null) {
+            headers.set(HttpHeaders.RANGE, range);
+        }
+        return pipe("/owner/export?format={format}&after={after}", userId,
+                Map.of("format", format, "after", after), headers, target);
+    }
+
+    public ResponseEntity<Object> getOwnerSummary(long userId, boolean byItem) {
+        return get("/owner/summary?byItem={byItem}", userId, Map.of("byItem", byItem));
+    }
+
+    public ResponseEntity<Object> approve(Long bookingId, boolean approved, Long userId, String ifMatch) {
+        return conditionalPatch("/" + bookingId + "?approved=" + approved, userId, ifMatch, null);
+    }
+
+    public ResponseEntity<Object> approveAll(long userId, List<BookingDecisionDto> decisions) {
+        return patch("", userId, decisions);
+    }
+
+    public void streamEvents(long userId, OutputStream out) {
+        streamRest.execute("/stream", HttpMethod.GET,
+                request -> {
+                    request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                    request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+                },
+                response -> {
+                    transfer(response.getBody(), out);
+                    return null;
+                });
+    }
+
+    private static void transfer(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            out.flush();
+        }
     }
-}
\ No newline at end of file
+}
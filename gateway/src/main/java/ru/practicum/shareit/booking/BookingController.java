@@ -1,9 +1,18 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import jakarta.validation.ValidationException;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,9 +24,13 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
+import java.util.List;
+
 @RestController
 @Validated
 @RequiredArgsConstructor
@@ -25,11 +38,13 @@ import ru.practicum.shareit.booking.dto.BookingState;
 public class BookingController {
     private final BookingClient bookingClient;
     static final String X_SHARED_USER_ID = "X-Sharer-User-Id";
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
     @PostMapping
     public ResponseEntity<Object> createBooking(@RequestHeader(X_SHARED_USER_ID) long userId,
+                                                @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
                                                 @RequestBody BookItemRequestDto bookingDto) {
-        return bookingClient.bookItem(userId, bookingDto);
+        return bookingClient.bookItem(userId, bookingDto, idempotencyKey);
     }
 
     @GetMapping
@@ -37,9 +52,14 @@ public class BookingController {
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
                                               @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
-        BookingState state = BookingState.from(stateParam)
-                .orElseThrow(() -> new ValidationException("Неизвестное состояние брони"));
-        return bookingClient.getBookings(userId, state, from, size);
+        return bookingClient.getBookings(userId, parseState(stateParam), from, size);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<Object> streamBookings(@RequestHeader(X_SHARED_USER_ID) long userId,
+                                                 @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                 HttpServletResponse response) {
+        return bookingClient.streamBookings(userId, parseState(stateParam), response);
     }
 
     @GetMapping("/owner")
@@ -47,16 +67,61 @@ public class BookingController {
         return bookingClient.getOwnedBookings(userId);
     }
 
+    @GetMapping(value = "/owner", params = "stream=true")
+    public ResponseEntity<Object> streamOwnedBookings(@RequestHeader(X_SHARED_USER_ID) long userId,
+                                                      @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                      HttpServletResponse response) {
+        return bookingClient.streamOwnedBookings(userId, parseState(stateParam), response);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<Object> exportOwnedBookings(@RequestHeader(X_SHARED_USER_ID) long userId,
+                                                      @Pattern(regexp = "(?i)csv|ndjson")
+                                                      @RequestParam(defaultValue = "csv") String format,
+                                                      @PositiveOrZero @RequestParam(defaultValue = "0") long after,
+                                                      @RequestHeader(value = HttpHeaders.RANGE, required = false)
+                                                      String range,
+                                                      HttpServletResponse response) {
+        return bookingClient.exportOwnedBookings(userId, format, after, range, response);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<Object> getOwnerSummary(@RequestHeader(X_SHARED_USER_ID) long userId,
+                                                  @RequestParam(defaultValue = "false") boolean byItem) {
+        return bookingClient.getOwnerSummary(userId, byItem);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestHeader(X_SHARED_USER_ID) long userId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .body(out -> bookingClient.streamEvents(userId, out));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Object> getBooking(@RequestHeader(X_SHARED_USER_ID) long userId,
                                              @PathVariable long id) {
         return bookingClient.getBooking(userId, id);
     }
 
+    @PatchMapping
+    public ResponseEntity<Object> approveAll(@RequestHeader(X_SHARED_USER_ID) long ownerId,
+                                             @RequestBody @NotEmpty @Size(max = 100)
+                                             List<@Valid @NotNull BookingDecisionDto> decisions) {
+        return bookingClient.approveAll(ownerId, decisions);
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<Object> approve(@RequestHeader(X_SHARED_USER_ID) long ownerId,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                           @PathVariable long id,
                                           @RequestParam boolean approved) {
-        return bookingClient.approve(id, approved, ownerId);
+        return bookingClient.approve(id, approved, ownerId, ifMatch);
+    }
+
+    private static BookingState parseState(String stateParam) {
+        return BookingState.from(stateParam)
+                .orElseThrow(() -> new ValidationException("Неизвестное состояние брони"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDecisionDto {
+    @NotNull(message = "id бронирования не может быть пустым")
+    private Long bookingId;
+    @NotNull(message = "Решение по бронированию не может быть пустым")
+    private Boolean approved;
+}
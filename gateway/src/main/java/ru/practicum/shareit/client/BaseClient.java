@@ -2,21 +2,37 @@ package ru.practicum.shareit.client;
 
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareit.exception.ErrorResponse;
 
 public class BaseClient {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final List<String> PIPED_HEADERS = List.of(
+            HttpHeaders.CONTENT_DISPOSITION, HttpHeaders.ACCEPT_RANGES, HttpHeaders.CONTENT_RANGE);
+
     protected final RestTemplate rest;
+    private final DownstreamGuard guard;
+    private final ServerProtocol protocol;
+    private final RequestCoalescer coalescer;
 
-    public BaseClient(RestTemplate rest) {
+    public BaseClient(RestTemplate rest, DownstreamGuard guard, ServerProtocol protocol, RequestCoalescer coalescer) {
         this.rest = rest;
+        this.guard = guard;
+        this.protocol = protocol;
+        this.coalescer = coalescer;
     }
 
     protected ResponseEntity<Object> get(String path) {
@@ -28,7 +44,9 @@ public class BaseClient {
     }
 
     protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+        String key = guard.getRoute() + path + "|" + (parameters == null ? "" : new TreeMap<>(parameters)) + "|" + userId;
+        return coalescer.execute(guard.getRoute(), key,
+                () -> makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, null));
     }
 
     protected <T> ResponseEntity<Object> post(String path, T body) {
@@ -40,7 +58,15 @@ public class BaseClient {
     }
 
     protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
+        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, null, body);
+    }
+
+    protected <T> ResponseEntity<Object> idempotentPost(String path, long userId, @Nullable String idempotencyKey, T body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (idempotencyKey != null) {
+            headers.set(IDEMPOTENCY_KEY, idempotencyKey);
+        }
+        return makeAndSendRequest(HttpMethod.POST, path, userId, null, headers, body);
     }
 
     protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
@@ -48,7 +74,7 @@ public class BaseClient {
     }
 
     protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
+        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, null, body);
     }
 
     protected <T> ResponseEntity<Object> patch(String path, T body) {
@@ -64,7 +90,15 @@ public class BaseClient {
     }
 
     protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
+        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, null, body);
+    }
+
+    protected <T> ResponseEntity<Object> conditionalPatch(String path, Long userId, @Nullable String ifMatch, T body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifMatch != null) {
+            headers.setIfMatch(ifMatch);
+        }
+        return makeAndSendRequest(HttpMethod.PATCH, path, userId, null, headers, body);
     }
 
     protected ResponseEntity<Object> delete(String path) {
@@ -76,12 +110,72 @@ public class BaseClient {
     }
 
     protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
+        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null, null);
+    }
+
+    protected ResponseEntity<Object> pipe(String path, long userId, @Nullable Map<String, Object> parameters,
+                                          HttpServletResponse target) {
+        return pipe(path, userId, parameters, null, target);
+    }
+
+    protected ResponseEntity<Object> pipe(String path, long userId, @Nullable Map<String, Object> parameters,
+                                          @Nullable HttpHeaders extraHeaders, HttpServletResponse target) {
+        DownstreamGuard.Rejection rejection = guard.tryAcquire();
+        if (rejection != null) {
+            return serviceUnavailable(rejection.name());
+        }
+
+        boolean failed = true;
+        try {
+            rest.execute(path, HttpMethod.GET,
+                    request -> {
+                        request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                        request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+                        if (extraHeaders != null) {
+                            request.getHeaders().putAll(extraHeaders);
+                        }
+                    },
+                    response -> {
+                        target.setStatus(response.getStatusCode().value());
+                        MediaType contentType = response.getHeaders().getContentType();
+                        if (contentType != null) {
+                            target.setContentType(contentType.toString());
+                        }
+                        for (String header : PIPED_HEADERS) {
+                            String value = response.getHeaders().getFirst(header);
+                            if (value != null) {
+                                target.setHeader(header, value);
+                            }
+                        }
+                        StreamUtils.copy(response.getBody(), target.getOutputStream());
+                        return null;
+                    },
+                    parameters == null ? Map.of() : parameters);
+            failed = false;
+        } catch (HttpStatusCodeException e) {
+            failed = e.getStatusCode().is5xxServerError();
+            return ResponseEntity.status(e.getStatusCode()).body(errorBody(e));
+        } catch (ResourceAccessException e) {
+            if (target.isCommitted()) {
+                return null;
+            }
+            return serviceUnavailable(e.getMessage());
+        } finally {
+            guard.release(failed);
+        }
+        return null;
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                          @Nullable HttpHeaders extraHeaders, @Nullable T body) {
+        DownstreamGuard.Rejection rejection = guard.tryAcquire();
+        if (rejection != null) {
+            return serviceUnavailable(rejection.name());
+        }
+
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId, extraHeaders));
 
+        boolean failed = true;
         ResponseEntity<Object> shareitServerResponse;
         try {
             if (parameters != null) {
@@ -89,25 +183,54 @@ public class BaseClient {
             } else {
                 shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
             }
+            failed = shareitServerResponse.getStatusCode().is5xxServerError();
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            failed = e.getStatusCode().is5xxServerError();
+            return ResponseEntity.status(e.getStatusCode()).body(errorBody(e));
+        } catch (ResourceAccessException e) {
+            return serviceUnavailable(e.getMessage());
+        } finally {
+            guard.release(failed);
         }
         return prepareGatewayResponse(shareitServerResponse);
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
+    private Object errorBody(HttpStatusCodeException e) {
+        MediaType contentType = e.getResponseHeaders() == null ? null : e.getResponseHeaders().getContentType();
+        if (protocol != ServerProtocol.JSON && protocol.getMediaType().isCompatibleWith(contentType)) {
+            return e.getResponseBodyAs(Object.class);
+        }
+        return e.getResponseBodyAsByteArray();
+    }
+
+    private ResponseEntity<Object> serviceUnavailable(String reason) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponse("Сервис " + guard.getRoute() + " временно недоступен", reason));
+    }
+
+    private HttpHeaders defaultHeaders(Long userId, @Nullable HttpHeaders extraHeaders) {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.setContentType(protocol.getMediaType());
+        headers.setAccept(List.of(protocol.getMediaType()));
         if (userId != null) {
             headers.set("X-Sharer-User-Id", String.valueOf(userId));
         }
+        if (extraHeaders != null) {
+            headers.addAll(extraHeaders);
+        }
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
+    private ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
         if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+            if (protocol == ServerProtocol.JSON) {
+                return response;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(response.getHeaders());
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
         }
 
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateBuilderConfigurer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.time.Duration;
+
+@Configuration
+public class ClientConfig {
+    @Bean
+    public RestTemplateBuilder restTemplateBuilder(RestTemplateBuilderConfigurer configurer,
+                                                   Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                                   @Value("${shareit-server.connect-timeout:2s}") Duration connectTimeout,
+                                                   @Value("${shareit-server.read-timeout:5s}") Duration readTimeout) {
+        MappingJackson2SmileHttpMessageConverter smileConverter = new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilder.factory(new SmileFactory()).build());
+        return configurer.configure(new RestTemplateBuilder())
+                .setConnectTimeout(connectTimeout)
+                .setReadTimeout(readTimeout)
+                .additionalCustomizers(restTemplate -> restTemplate.getMessageConverters()
+                        .replaceAll(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+                                ? smileConverter : converter));
+    }
+}
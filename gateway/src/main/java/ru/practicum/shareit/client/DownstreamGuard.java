@@ -0,0 +1,67 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+import java.util.concurrent.Semaphore;
+
+public class DownstreamGuard {
+    public enum Rejection {
+        BULKHEAD_FULL,
+        CIRCUIT_OPEN
+    }
+
+    @Getter
+    private final String route;
+    private final Semaphore bulkhead;
+    @Getter
+    private final CircuitBreaker circuitBreaker;
+    private final Counter bulkheadRejections;
+    private final Counter circuitRejections;
+
+    public DownstreamGuard(String route, int maxConcurrentCalls, CircuitBreaker circuitBreaker, MeterRegistry registry) {
+        this.route = route;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = circuitBreaker;
+        this.bulkheadRejections = rejectionCounter(registry, route, Rejection.BULKHEAD_FULL);
+        this.circuitRejections = rejectionCounter(registry, route, Rejection.CIRCUIT_OPEN);
+        Gauge.builder("shareit.gateway.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("Состояние circuit breaker: 0 - closed, 1 - open, 2 - half-open")
+                .tag("route", route)
+                .register(registry);
+        Gauge.builder("shareit.gateway.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tag("route", route)
+                .register(registry);
+    }
+
+    public Rejection tryAcquire() {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.increment();
+            return Rejection.BULKHEAD_FULL;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            circuitRejections.increment();
+            return Rejection.CIRCUIT_OPEN;
+        }
+        return null;
+    }
+
+    public void release(boolean failed) {
+        if (failed) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+        bulkhead.release();
+    }
+
+    private static Counter rejectionCounter(MeterRegistry registry, String route, Rejection reason) {
+        return Counter.builder("shareit.gateway.client.rejected")
+                .tag("route", route)
+                .tag("reason", reason.name().toLowerCase())
+                .register(registry);
+    }
+}
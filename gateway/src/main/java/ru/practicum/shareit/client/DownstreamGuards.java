@@ -0,0 +1,29 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class DownstreamGuards {
+    private final MeterRegistry registry;
+    private final int maxConcurrentCalls;
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    public DownstreamGuards(MeterRegistry registry,
+                            @Value("${shareit-server.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+                            @Value("${shareit-server.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                            @Value("${shareit-server.circuit-breaker.open-duration:10s}") Duration openDuration) {
+        this.registry = registry;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public DownstreamGuard forRoute(String route) {
+        return new DownstreamGuard(route, maxConcurrentCalls, new CircuitBreaker(failureThreshold, openDuration), registry);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Component
+public class RequestCoalescer {
+    private static final String REQUESTS_METRIC = "shareit.gateway.coalescing.requests";
+
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final int maxWaiters;
+
+    public RequestCoalescer(MeterRegistry registry,
+                            @Value("${shareit-server.coalescing.enabled:true}") boolean enabled,
+                            @Value("${shareit-server.coalescing.max-waiters:100}") int maxWaiters) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.maxWaiters = maxWaiters;
+        Gauge.builder("shareit.gateway.coalescing.in-flight", inFlight, ConcurrentMap::size)
+                .register(registry);
+    }
+
+    public ResponseEntity<Object> execute(String route, String key, Supplier<ResponseEntity<Object>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        Flight flight = new Flight();
+        Flight leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            if (leader.waiters.incrementAndGet() <= maxWaiters) {
+                count(route, "follower");
+                return leader.await();
+            }
+            count(route, "overflow");
+            return call.get();
+        }
+
+        count(route, "leader");
+        try {
+            ResponseEntity<Object> response = call.get();
+            flight.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            flight.response.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private void count(String route, String outcome) {
+        registry.counter(REQUESTS_METRIC, "route", route, "outcome", outcome).increment();
+    }
+
+    private static class Flight {
+        private final CompletableFuture<ResponseEntity<Object>> response = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        private ResponseEntity<Object> await() {
+            try {
+                return response.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
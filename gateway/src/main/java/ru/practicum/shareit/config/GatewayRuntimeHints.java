@@ -0,0 +1,40 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.exception.ErrorResponse;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.List;
+
+public class GatewayRuntimeHints implements RuntimeHintsRegistrar {
+    static final List<Class<?>> DTO_TYPES = List.of(
+            BookItemRequestDto.class,
+            BookingDecisionDto.class,
+            ItemDto.class,
+            CommentDto.class,
+            UserDto.class,
+            ItemRequestDto.class,
+            ErrorResponse.class);
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> type : DTO_TYPES) {
+            bindingRegistrar.registerReflectionHints(hints.reflection(), type);
+            hints.reflection().registerType(type,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_METHODS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        hints.resources().registerResourceBundle("org.hibernate.validator.ValidationMessages");
+    }
+}
@@ -3,9 +3,12 @@ package ru.practicum.shareit.exception;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.client.ResourceAccessException;
 
 
 @Slf4j
@@ -38,4 +41,12 @@ public class ErrorHandler {
         log.warn("Передан некорректный параметр {}", e.getMessage());
         return new ErrorResponse(e.getMessage(), "");
     }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleServerUnavailable(final ResourceAccessException e) {
+        log.warn("Сервер недоступен {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorResponse("Сервер временно недоступен", e.getMessage()));
+    }
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -8,6 +9,9 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.DownstreamGuards;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ServerProtocol;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
@@ -16,22 +20,26 @@ public class ItemClient extends BaseClient {
     private static final String BASE_PATH = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, DownstreamGuards guards,
+                      @Value("${shareit-server.protocol:JSON}") ServerProtocol protocol,
+                      RequestCoalescer coalescer) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + BASE_PATH))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                        .build()
+                        .requestFactory(HttpComponentsClientHttpRequestFactory.class)
+                        .build(),
+                guards.forRoute(BASE_PATH),
+                protocol,
+                coalescer
         );
     }
 
-    public ResponseEntity<Object> createItem(long userId, ItemDto itemDto) {
-
-        return post("", userId, itemDto);
+    public ResponseEntity<Object> createItem(long userId, ItemDto itemDto, String idempotencyKey) {
+        return idempotentPost("", userId, idempotencyKey, itemDto);
     }
 
-    public ResponseEntity<Object> updateItem(ItemDto itemDto, long userId) {
-        return patch("", userId, itemDto);
+    public ResponseEntity<Object> updateItem(ItemDto itemDto, long userId, String ifMatch) {
+        return conditionalPatch("/" + itemDto.getId(), userId, ifMatch, itemDto);
     }
 
     public void deleteItem(long itemId) {
@@ -42,6 +50,10 @@ public class ItemClient extends BaseClient {
         return get("", ownerId);
     }
 
+    public ResponseEntity<Object> streamItemsByOwner(long ownerId, HttpServletResponse target) {
+        return pipe("?stream=true", ownerId, null, target);
+    }
+
     public ResponseEntity<Object> getItem(long itemId, long userId) {
         return get("/" + itemId, userId);
     }
@@ -50,7 +62,7 @@ public class ItemClient extends BaseClient {
         return get("/search?text=" + text);
     }
 
-    public ResponseEntity<Object> addComment(long userId, long itemId, CommentDto comment) {
-        return post("/" + itemId + "/comment", userId, comment);
+    public ResponseEntity<Object> addComment(long userId, long itemId, CommentDto comment, String idempotencyKey) {
+        return idempotentPost("/" + itemId + "/comment", userId, idempotencyKey, comment);
     }
 }
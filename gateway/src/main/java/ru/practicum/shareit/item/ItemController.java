@@ -1,7 +1,9 @@
 package ru.practicum.shareit.item;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,6 +24,7 @@ import ru.practicum.shareit.item.dto.ItemDto;
 public class ItemController {
     private final ItemClient client;
     static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
     @GetMapping("/{id}")
     public ResponseEntity<Object> getItem(@RequestHeader(X_SHARER_USER_ID) long userId,
@@ -34,6 +37,12 @@ public class ItemController {
         return client.getItemByOwner(userId);
     }
 
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<Object> streamItemsByOwner(@RequestHeader(X_SHARER_USER_ID) long userId,
+                                                     HttpServletResponse response) {
+        return client.streamItemsByOwner(userId, response);
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Object> searchItem(@RequestParam String text) {
         return client.searchItem(text);
@@ -41,16 +50,18 @@ public class ItemController {
 
     @PostMapping
     public ResponseEntity<Object> createItem(@RequestHeader(X_SHARER_USER_ID) long userId,
+                                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
                                              @RequestBody @Valid ItemDto itemDto) {
-        return client.createItem(userId, itemDto);
+        return client.createItem(userId, itemDto, idempotencyKey);
     }
 
     @PatchMapping("/{id}")
     public ResponseEntity<Object> updateItem(@RequestHeader(X_SHARER_USER_ID) long userId,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                          @PathVariable long id,
                                          @RequestBody ItemDto itemDto) {
         itemDto.setId(id);
-        return client.updateItem(itemDto, userId);
+        return client.updateItem(itemDto, userId, ifMatch);
     }
 
     @DeleteMapping("/{id}")
@@ -60,8 +71,9 @@ public class ItemController {
 
     @PostMapping("/{id}/comment")
     public ResponseEntity<Object> createComment(@RequestHeader(X_SHARER_USER_ID) long userId,
+                                                @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
                                                 @PathVariable long id,
                                                 @RequestBody CommentDto comment) {
-        return client.addComment(userId, id, comment);
+        return client.addComment(userId, id, comment, idempotencyKey);
     }
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -8,19 +9,29 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.DownstreamGuards;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ServerProtocol;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.util.Map;
+
 @Service
 public class ItemRequestClient extends BaseClient {
     public static final String BASE_PATH = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, DownstreamGuards guards,
+                             @Value("${shareit-server.protocol:JSON}") ServerProtocol protocol,
+                             RequestCoalescer coalescer) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + BASE_PATH))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                        .build()
+                        .requestFactory(HttpComponentsClientHttpRequestFactory.class)
+                        .build(),
+                guards.forRoute(BASE_PATH),
+                protocol,
+                coalescer
         );
     }
 
@@ -33,11 +44,22 @@ public class ItemRequestClient extends BaseClient {
     }
 
 
+    public ResponseEntity<Object> streamAllForUser(long userId, HttpServletResponse target) {
+        return pipe("?stream=true", userId, null, target);
+    }
+
     public ResponseEntity<Object> getRequest(Long requestId, Long userId) {
         return get("/" + requestId, userId);
     }
 
-    public ResponseEntity<Object> findAllUsersItemRequest() {
-        return get("/all");
+    public ResponseEntity<Object> findAllUsersItemRequest(long userId, String cursor, Integer size) {
+        if (cursor == null) {
+            return get("/all?size={size}", userId, Map.of("size", size));
+        }
+        Map<String, Object> parameters = Map.of(
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/all?cursor={cursor}&size={size}", userId, parameters);
     }
 }
@@ -1,18 +1,24 @@
 package ru.practicum.shareit.request;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 @RestController
+@Validated
 @RequestMapping(path = "/requests")
 @RequiredArgsConstructor
 public class ItemRequestController {
@@ -30,9 +36,17 @@ public class ItemRequestController {
         return itemRequestClient.getAllForUser(userId);
     }
 
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<Object> streamUserRequests(@RequestHeader(X_SHARER_USER_ID) Long userId,
+                                                     HttpServletResponse response) {
+        return itemRequestClient.streamAllForUser(userId, response);
+    }
+
     @GetMapping("/all")
-    public ResponseEntity<Object> getOtherUsersRequests() {
-        return itemRequestClient.findAllUsersItemRequest();
+    public ResponseEntity<Object> getOtherUsersRequests(@RequestHeader(X_SHARER_USER_ID) Long userId,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @Positive @Max(100) @RequestParam(defaultValue = "20") Integer size) {
+        return itemRequestClient.findAllUsersItemRequest(userId, cursor, size);
     }
 
     @GetMapping("/{requestId}")
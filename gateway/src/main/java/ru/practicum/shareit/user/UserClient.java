@@ -8,6 +8,9 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.DownstreamGuards;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ServerProtocol;
 import ru.practicum.shareit.user.dto.UserDto;
 
 @Service
@@ -16,16 +19,21 @@ public class UserClient extends BaseClient {
     private static final String BASE_PATH = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, DownstreamGuards guards,
+                      @Value("${shareit-server.protocol:JSON}") ServerProtocol protocol,
+                      RequestCoalescer coalescer) {
         super(builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + BASE_PATH))
-                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                .build()
+                .requestFactory(HttpComponentsClientHttpRequestFactory.class)
+                .build(),
+                guards.forRoute(BASE_PATH),
+                protocol,
+                coalescer
         );
     }
 
     public ResponseEntity<Object> getUser(long userId) {
-        return get("/" + userId);
+        return get("/" + userId, userId);
     }
 
     public ResponseEntity<Object> createUser(UserDto userDto) {
@@ -33,11 +41,11 @@ public class UserClient extends BaseClient {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> updateUser(UserDto userDto) {
-        return patch("/" + userDto.getId(), userDto);
+    public ResponseEntity<Object> updateUser(UserDto userDto, String ifMatch) {
+        return conditionalPatch("/" + userDto.getId(), userDto.getId(), ifMatch, userDto);
     }
 
     public void deleteUser(long userId) {
-        delete("/" + userId);
+        delete("/" + userId, userId);
     }
 }
\ No newline at end of file
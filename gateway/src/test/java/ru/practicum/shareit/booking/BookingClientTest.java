@@ -0,0 +1,160 @@
+package ru.practicum.shareit.booking;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.client.DownstreamGuards;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ServerProtocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookingClientTest {
+    private static final String[] CHUNKS = {
+        "id:1\nevent:BOOKING_CREATED\ndata:{\"bookingId\":1}\n\n",
+        ":heartbeat\n\n",
+        "id:2\nevent:BOOKING_APPROVED\ndata:{\"bookingId\":1}\n\n"
+    };
+
+    private static final String[] ARRAY_CHUNKS = {"[{\"id\":1}", ",{\"id\":2}", ",{\"id\":3}]"};
+
+    private HttpServer stub;
+    private final AtomicReference<String> userHeader = new AtomicReference<>();
+    private final AtomicReference<String> acceptHeader = new AtomicReference<>();
+    private final AtomicReference<String> query = new AtomicReference<>();
+    private final AtomicReference<String> rangeHeader = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/bookings/stream", exchange -> {
+            userHeader.set(exchange.getRequestHeaders().getFirst("X-Sharer-User-Id"));
+            acceptHeader.set(exchange.getRequestHeaders().getFirst("Accept"));
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (String chunk : CHUNKS) {
+                    body.write(chunk.getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                }
+            }
+        });
+        stub.createContext("/bookings/owner", exchange -> {
+            query.set(exchange.getRequestURI().getQuery());
+            acceptHeader.set(exchange.getRequestHeaders().getFirst("Accept"));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if ("404".equals(exchange.getRequestHeaders().getFirst("X-Sharer-User-Id"))) {
+                byte[] error = "{\"error\":\"not found\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(404, error.length);
+                exchange.getResponseBody().write(error);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (String chunk : ARRAY_CHUNKS) {
+                    body.write(chunk.getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                }
+            }
+        });
+        stub.createContext("/bookings/owner/export", exchange -> {
+            query.set(exchange.getRequestURI().getQuery());
+            rangeHeader.set(exchange.getRequestHeaders().getFirst("Range"));
+            exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            exchange.getResponseHeaders().add("Accept-Ranges", "id");
+            exchange.getResponseHeaders().add("Content-Range", "id 5-");
+            exchange.getResponseHeaders().add("Content-Disposition", "attachment; filename=\"bookings-7.ndjson\"");
+            exchange.sendResponseHeaders(206, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write("{\"id\":5}\n{\"id\":6}\n".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        stub.start();
+    }
+
+    private BookingClient client() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new BookingClient("http://localhost:" + stub.getAddress().getPort(),
+                new RestTemplateBuilder(),
+                new DownstreamGuards(registry, 10, 5, Duration.ofSeconds(10)),
+                ServerProtocol.JSON,
+                new RequestCoalescer(registry, false, 0),
+                Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.stop(0);
+    }
+
+    @Test
+    void streamEvents_ShouldRelayServerEventStream() {
+        BookingClient client = client();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        client.streamEvents(7, out);
+
+        assertEquals(String.join("", CHUNKS), out.toString(StandardCharsets.UTF_8));
+        assertEquals("7", userHeader.get());
+        assertEquals("text/event-stream", acceptHeader.get());
+    }
+
+    @Test
+    void streamOwnedBookings_ShouldPipeJsonArrayToResponse() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<Object> result = client().streamOwnedBookings(7, BookingState.ALL, response);
+
+        assertNull(result);
+        assertEquals(200, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertEquals(String.join("", ARRAY_CHUNKS), response.getContentAsString());
+        assertEquals("state=ALL&stream=true", query.get());
+        assertEquals("application/json", acceptHeader.get());
+    }
+
+    @Test
+    void streamOwnedBookings_ShouldReturnServerErrorWithoutStreaming() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<Object> result = client().streamOwnedBookings(404, BookingState.ALL, response);
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        assertFalse(response.isCommitted());
+    }
+
+    @Test
+    void exportOwnedBookings_ShouldForwardRangeAndPipeExportHeaders() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<Object> result = client().exportOwnedBookings(7, "ndjson", 0, "id=5-", response);
+
+        assertNull(result);
+        assertEquals(206, response.getStatus());
+        assertEquals("application/x-ndjson", response.getContentType());
+        assertEquals("id 5-", response.getHeader("Content-Range"));
+        assertEquals("id", response.getHeader("Accept-Ranges"));
+        assertEquals("attachment; filename=\"bookings-7.ndjson\"", response.getHeader("Content-Disposition"));
+        assertEquals("{\"id\":5}\n{\"id\":6}\n", response.getContentAsString());
+        assertEquals("format=ndjson&after=0", query.get());
+        assertEquals("id=5-", rangeHeader.get());
+    }
+}
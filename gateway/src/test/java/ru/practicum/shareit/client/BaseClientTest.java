@@ -0,0 +1,167 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.user.UserClient;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BaseClientTest {
+    private static final String USER_JSON = "{\"id\":1,\"name\":\"user\",\"email\":\"user@mail.ru\"}";
+
+    private HttpServer stub;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile int stubStatus = 200;
+    private volatile CountDownLatch stubGate = new CountDownLatch(0);
+    private MeterRegistry registry;
+    private final AtomicReference<String> ifMatch = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/users", this::handle);
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.start();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubGate.countDown();
+        stub.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        hits.incrementAndGet();
+        ifMatch.set(exchange.getRequestHeaders().getFirst("If-Match"));
+        try {
+            stubGate.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = USER_JSON.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("ETag", "\"2\"");
+        exchange.sendResponseHeaders(stubStatus, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private UserClient client(int maxConcurrentCalls, int failureThreshold, Duration openDuration) {
+        RestTemplateBuilder builder = new RestTemplateBuilder().setReadTimeout(Duration.ofMillis(500));
+        DownstreamGuards guards = new DownstreamGuards(registry, maxConcurrentCalls, failureThreshold, openDuration);
+        return new UserClient("http://localhost:" + stub.getAddress().getPort(), builder, guards, ServerProtocol.JSON,
+                new RequestCoalescer(registry, false, 0));
+    }
+
+    private double rejected(String reason) {
+        return registry.get("shareit.gateway.client.rejected").tag("reason", reason).counter().count();
+    }
+
+    private double circuitState() {
+        return registry.get("shareit.gateway.circuit.state").gauge().value();
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveServerErrorsAndFailsFast() {
+        UserClient client = client(10, 3, Duration.ofMinutes(1));
+        stubStatus = 500;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, client.getUser(1).getStatusCode());
+        }
+        ResponseEntity<Object> response = client.getUser(1);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals(3, hits.get());
+        assertEquals(1, rejected("circuit_open"));
+        assertEquals(CircuitBreaker.State.OPEN.ordinal(), circuitState());
+    }
+
+    @Test
+    void circuitClosesAfterSuccessfulTrialCall() throws InterruptedException {
+        UserClient client = client(10, 1, Duration.ofMillis(100));
+        stubStatus = 500;
+        client.getUser(1);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, client.getUser(1).getStatusCode());
+
+        Thread.sleep(150);
+        stubStatus = 200;
+
+        assertEquals(HttpStatus.OK, client.getUser(1).getStatusCode());
+        assertEquals(CircuitBreaker.State.CLOSED.ordinal(), circuitState());
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void clientErrorsDoNotOpenCircuit() {
+        UserClient client = client(10, 1, Duration.ofMinutes(1));
+        stubStatus = 404;
+
+        assertEquals(HttpStatus.NOT_FOUND, client.getUser(1).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, client.getUser(1).getStatusCode());
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void slowServerTimesOutAndCountsAsFailure() {
+        UserClient client = client(10, 1, Duration.ofMinutes(1));
+        stubGate = new CountDownLatch(1);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, client.getUser(1).getStatusCode());
+        assertEquals(CircuitBreaker.State.OPEN.ordinal(), circuitState());
+    }
+
+    @Test
+    void bulkheadRejectsCallsAboveConcurrencyLimit() throws Exception {
+        UserClient client = client(1, 5, Duration.ofMinutes(1));
+        stubGate = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<Object>> inFlight = CompletableFuture.supplyAsync(() -> client.getUser(1));
+        while (hits.get() == 0) {
+            Thread.sleep(10);
+        }
+        ResponseEntity<Object> rejected = client.getUser(1);
+        stubGate.countDown();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+        assertEquals(HttpStatus.OK, inFlight.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(1, rejected("bulkhead_full"));
+        assertTrue(rejected("circuit_open") == 0);
+    }
+
+    @Test
+    void conditionalPatchForwardsIfMatchAndReturnsETag() {
+        UserClient client = client(10, 5, Duration.ofMinutes(1));
+        UserDto update = new UserDto();
+        update.setId(1L);
+        update.setName("user");
+
+        ResponseEntity<Object> response = client.updateUser(update, "\"1\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"1\"", ifMatch.get());
+        assertEquals("\"2\"", response.getHeaders().getETag());
+    }
+}
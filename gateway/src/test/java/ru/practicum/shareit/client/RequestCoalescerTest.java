@@ -0,0 +1,103 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RequestCoalescerTest {
+    private static final String ROUTE = "/items";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final Supplier<ResponseEntity<Object>> slowCall = () -> {
+        upstreamCalls.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return ResponseEntity.ok("item");
+    };
+
+    private double requests(String outcome) {
+        return registry.counter("shareit.gateway.coalescing.requests", "route", ROUTE, "outcome", outcome).count();
+    }
+
+    private List<CompletableFuture<ResponseEntity<Object>>> startConcurrent(RequestCoalescer coalescer, int count,
+                                                                           ExecutorService executor) throws Exception {
+        List<CompletableFuture<ResponseEntity<Object>>> results = new ArrayList<>();
+        results.add(CompletableFuture.supplyAsync(() -> coalescer.execute(ROUTE, "/items/1|1", slowCall), executor));
+        while (upstreamCalls.get() == 0) {
+            Thread.sleep(5);
+        }
+        for (int i = 1; i < count; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> coalescer.execute(ROUTE, "/items/1|1", slowCall), executor));
+        }
+        while (requests("follower") + requests("overflow") < count - 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        return results;
+    }
+
+    @Test
+    void identicalConcurrentRequestsShareOneUpstreamCall() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(registry, true, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+
+        List<CompletableFuture<ResponseEntity<Object>>> results = startConcurrent(coalescer, 10, executor);
+
+        ResponseEntity<Object> first = results.getFirst().get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<ResponseEntity<Object>> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, requests("leader"));
+        assertEquals(9, requests("follower"));
+        executor.shutdown();
+    }
+
+    @Test
+    void waitersAboveLimitCallUpstreamThemselves() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(registry, true, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        List<CompletableFuture<ResponseEntity<Object>>> results = startConcurrent(coalescer, 5, executor);
+
+        for (CompletableFuture<ResponseEntity<Object>> result : results) {
+            assertEquals("item", result.get(5, TimeUnit.SECONDS).getBody());
+        }
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(2, requests("follower"));
+        assertEquals(2, requests("overflow"));
+        executor.shutdown();
+    }
+
+    @Test
+    void sequentialRequestsAreNotCoalesced() {
+        RequestCoalescer coalescer = new RequestCoalescer(registry, true, 100);
+        release.countDown();
+
+        coalescer.execute(ROUTE, "/items/1|1", slowCall);
+        coalescer.execute(ROUTE, "/items/1|1", slowCall);
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(2, requests("leader"));
+    }
+}
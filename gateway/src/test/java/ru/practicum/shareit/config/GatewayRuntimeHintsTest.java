@@ -0,0 +1,29 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GatewayRuntimeHintsTest {
+    @Test
+    void registersBindingAndValidationHintsForDtos() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new GatewayRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        for (Class<?> type : GatewayRuntimeHints.DTO_TYPES) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(type).test(hints), type.getName());
+            for (var field : type.getDeclaredFields()) {
+                assertTrue(RuntimeHintsPredicates.reflection().onField(field).test(hints), field.toString());
+            }
+        }
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(BookItemRequestDto.class.getDeclaredMethod("isValidDateRange"))
+                .test(hints));
+        assertTrue(RuntimeHintsPredicates.resource()
+                .forBundle("org.hibernate.validator.ValidationMessages")
+                .test(hints));
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.user;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import ru.practicum.shareit.client.DownstreamGuards;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ServerProtocol;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserClientTest {
+    private HttpServer stub;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/users", exchange -> {
+            requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " "
+                    + exchange.getRequestHeaders().getFirst("X-Sharer-User-Id"));
+            byte[] body = "{\"id\":7}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.stop(0);
+    }
+
+    private UserClient client() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new UserClient("http://localhost:" + stub.getAddress().getPort(),
+                new RestTemplateBuilder(),
+                new DownstreamGuards(registry, 10, 5, Duration.ofSeconds(10)),
+                ServerProtocol.JSON,
+                new RequestCoalescer(registry, false, 0));
+    }
+
+    @Test
+    void userRequests_ShouldForwardUserIdSoServerCanPinReadsAfterWrites() {
+        UserClient client = client();
+        UserDto user = new UserDto();
+        user.setId(7L);
+        user.setName("Новое имя");
+
+        client.updateUser(user, null);
+        client.getUser(7);
+        client.deleteUser(7);
+
+        assertEquals(List.of("PATCH /users/7 7", "GET /users/7 7", "DELETE /users/7 7"), requests);
+    }
+}
@@ -1,8 +1,14 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,11 +18,29 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.OwnerBookingSummaryDto;
+import ru.practicum.shareit.booking.services.BookingEventStream;
+import ru.practicum.shareit.booking.services.BookingExport;
+import ru.practicum.shareit.booking.services.BookingExportService;
 import ru.practicum.shareit.booking.services.BookingService;
+import ru.practicum.shareit.exception.BusinessException;
+import ru.practicum.shareit.streaming.JsonArrayResponses;
+import ru.practicum.shareit.version.ETags;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j
 @RestController
@@ -24,33 +48,54 @@ import java.util.List;
 @RequestMapping(path = "/bookings")
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingEventStream bookingEventStream;
+    private final JsonArrayResponses jsonArrayResponses;
+    private final BookingExportService bookingExportService;
     private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final String ID_RANGE_UNIT = "id";
+    private static final Pattern ID_RANGE = Pattern.compile("id=(\\d{1,18})-");
 
     @PostMapping
-    public BookingResponseDto create(@RequestHeader(X_SHARER_USER_ID) long userId,
-                                     @RequestBody @Valid BookingDto bookingDto) {
+    public ResponseEntity<BookingResponseDto> create(@RequestHeader(X_SHARER_USER_ID) long userId,
+                                                     @RequestBody @Valid BookingDto bookingDto) {
         log.info("Создаем бронь: {}", bookingDto);
         BookingResponseDto response = bookingService.create(bookingDto, userId);
         log.info("Бронирование создано: {}", response);
-        return response;
+        return ETags.withVersion(response, response.getVersion());
     }
 
     @PatchMapping("/{bookingId}")
-    public BookingResponseDto approve(@PathVariable long bookingId,
-                                    @RequestParam boolean approved,
-                                    @RequestHeader(X_SHARER_USER_ID) long ownerId) {
+    public ResponseEntity<BookingResponseDto> approve(@PathVariable long bookingId,
+                                                      @RequestParam boolean approved,
+                                                      @RequestHeader(X_SHARER_USER_ID) long ownerId,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                      String ifMatch) {
         log.info("Подтверждение брони владельцем: {}", ownerId);
-        BookingResponseDto bookingDto = bookingService.approve(bookingId, approved, ownerId);
+        BookingResponseDto bookingDto = bookingService.approve(bookingId, approved, ownerId,
+                ETags.expectedVersion(ifMatch));
         log.info("Бронирование c id {} {}", bookingId, approved ? "подтверждено" : "отклонено");
-        return bookingDto;
+        return ETags.withVersion(bookingDto, bookingDto.getVersion());
     }
 
+    @PatchMapping
+    public List<BookingDecisionResultDto> approveAll(@RequestBody List<BookingDecisionDto> decisions,
+                                                     @RequestHeader(X_SHARER_USER_ID) long ownerId) {
+        log.info("Пакетное подтверждение {} броней владельцем {}", decisions.size(), ownerId);
+        return bookingService.approveAll(decisions, ownerId);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(X_SHARER_USER_ID) long userId) {
+        log.info("Подписываем пользователя {} на события бронирований", userId);
+        return bookingEventStream.connect(userId);
+    }
 
     @GetMapping("/{bookingId}")
-    public BookingResponseDto getBooking(@PathVariable long bookingId,
-                                       @RequestHeader(X_SHARER_USER_ID) long userId) {
+    public ResponseEntity<BookingResponseDto> getBooking(@PathVariable long bookingId,
+                                                         @RequestHeader(X_SHARER_USER_ID) long userId) {
         log.info("Получаем данные о бронировании {}", bookingId);
-        return bookingService.findById(bookingId, userId);
+        BookingResponseDto bookingDto = bookingService.findById(bookingId, userId);
+        return ETags.withVersion(bookingDto, bookingDto.getVersion());
     }
 
     @GetMapping
@@ -60,6 +105,14 @@ public class BookingController {
         return bookingService.findByBookerId(bookerId, status);
     }
 
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamBookings(
+            @RequestParam(value = "state", defaultValue = "ALL") String status,
+            @RequestHeader(X_SHARER_USER_ID) long bookerId) {
+        log.info("Потоково выгружаем бронирования пользователя {}", bookerId);
+        return jsonArrayResponses.of(bookingService.streamByBookerId(bookerId, status));
+    }
+
     @GetMapping("/owner")
     public List<BookingResponseDto> getOwnerBookings(@RequestParam(value = "state", defaultValue = "ALL") String status,
                                                    @RequestHeader(X_SHARER_USER_ID) long ownerId) {
@@ -67,4 +120,52 @@ public class BookingController {
         return bookingService.findByOwnerId(ownerId, status);
     }
 
+    @GetMapping(value = "/owner", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamOwnerBookings(
+            @RequestParam(value = "state", defaultValue = "ALL") String status,
+            @RequestHeader(X_SHARER_USER_ID) long ownerId) {
+        log.info("Потоково выгружаем бронирования по владельцу {}", ownerId);
+        return jsonArrayResponses.of(bookingService.streamByOwnerId(ownerId, status));
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportOwnerBookings(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(X_SHARER_USER_ID) long ownerId,
+            HttpServletRequest request) {
+        BookingExportFormat exportFormat = BookingExportFormat.from(format)
+                .orElseThrow(() -> new BusinessException("Неизвестный формат выгрузки: " + format));
+        Matcher rangeMatcher = range == null ? null : ID_RANGE.matcher(range.trim());
+        boolean partial = rangeMatcher != null && rangeMatcher.matches();
+        long afterId = partial ? Math.max(after, Long.parseLong(rangeMatcher.group(1)) - 1) : after;
+        log.info("Выгружаем историю бронирований владельца {} в формате {} после id {}", ownerId, format, afterId);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.ACCEPT_RANGES, ID_RANGE_UNIT)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("bookings-" + ownerId + "." + exportFormat.getExtension())
+                        .build()
+                        .toString());
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, ID_RANGE_UNIT + " " + (afterId + 1) + "-");
+        }
+        BookingExport export = bookingExportService.exportOwnerBookings(ownerId, exportFormat, afterId);
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(export, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                export.cancel();
+            }
+        });
+        return response.body(export);
+    }
+
+    @GetMapping("/owner/summary")
+    public OwnerBookingSummaryDto getOwnerSummary(@RequestParam(defaultValue = "false") boolean byItem,
+                                                  @RequestHeader(X_SHARER_USER_ID) long ownerId) {
+        log.info("Получаем сводку бронирований владельца {}", ownerId);
+        return bookingService.getOwnerSummary(ownerId, byItem);
+    }
 }
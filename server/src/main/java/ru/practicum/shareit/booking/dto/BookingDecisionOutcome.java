@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.dto;
+
+public enum BookingDecisionOutcome {
+    APPLIED,
+    NOT_FOUND,
+    NOT_WAITING,
+    DUPLICATE,
+    INVALID
+}
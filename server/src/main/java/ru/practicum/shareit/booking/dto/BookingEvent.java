@@ -0,0 +1,6 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+public record BookingEvent(Long bookingId, Long itemId, Long ownerId, Long bookerId, BookingStatus status) {
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+public record BookingExportRow(long id,
+                               LocalDateTime start,
+                               LocalDateTime end,
+                               BookingStatus status,
+                               long itemId,
+                               String itemName,
+                               long bookerId,
+                               String bookerName,
+                               String bookerEmail) {
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,4 +22,6 @@ public class BookingResponseDto {
     private ItemDto item;
     private UserDto booker;
     private BookingStatus status;
+    @JsonIgnore
+    private Long version;
 }
\ No newline at end of file
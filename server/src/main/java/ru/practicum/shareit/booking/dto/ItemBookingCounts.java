@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.dto;
+
+public record ItemBookingCounts(Long itemId,
+                                String itemName,
+                                long all,
+                                long current,
+                                long past,
+                                long future,
+                                long waiting,
+                                long approved,
+                                long rejected) {
+}
@@ -2,9 +2,16 @@ package ru.practicum.shareit.booking.mapper;
 
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingView;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEvent;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 @UtilityClass
@@ -25,7 +32,81 @@ public class BookingMapper {
                 booking.getEnd(),
                 ItemMapper.toItemDto(booking.getItem()),
                 UserMapper.toUserDto(booking.getBooker()),
+                booking.getStatus(),
+                booking.getVersion()
+        );
+    }
+
+    public BookingResponseDto toBookingResponseDto(BookingRow row) {
+        return new BookingResponseDto(row.id(),
+                row.start(),
+                row.end(),
+                ItemDto.builder()
+                        .id(row.itemId())
+                        .name(row.itemName())
+                        .description(row.itemDescription())
+                        .available(row.itemAvailable())
+                        .requestId(row.itemRequestId())
+                        .build(),
+                new UserDto(row.bookerId(), row.bookerName(), row.bookerEmail(), null),
+                row.status(),
+                row.version()
+        );
+    }
+
+    public BookingResponseDto toBookingResponseDto(BookingView view) {
+        return new BookingResponseDto(view.getBookingId(),
+                view.getStart(),
+                view.getEnd(),
+                ItemDto.builder()
+                        .id(view.getItemId())
+                        .name(view.getItemName())
+                        .description(view.getItemDescription())
+                        .available(view.getItemAvailable())
+                        .requestId(view.getItemRequestId())
+                        .build(),
+                new UserDto(view.getBookerId(), view.getBookerName(), view.getBookerEmail(), null),
+                view.getStatus(),
+                view.getVersion()
+        );
+    }
+
+    public BookingView toBookingView(Booking booking) {
+        Item item = booking.getItem();
+        User booker = booking.getBooker();
+        return BookingView.builder()
+                .bookingId(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .status(booking.getStatus())
+                .itemId(item.getId())
+                .itemName(item.getName())
+                .itemDescription(item.getDescription())
+                .itemAvailable(item.getAvailable())
+                .itemRequestId(item.getRequest() == null ? null : item.getRequest().getId())
+                .ownerId(item.getOwner().getId())
+                .bookerId(booker.getId())
+                .bookerName(booker.getName())
+                .bookerEmail(booker.getEmail())
+                .version(booking.getVersion())
+                .build();
+    }
+
+    public BookingEvent toBookingEvent(Booking booking) {
+        return new BookingEvent(booking.getId(),
+                booking.getItem().getId(),
+                booking.getItem().getOwner().getId(),
+                booking.getBooker().getId(),
                 booking.getStatus()
         );
     }
+
+    public BookingEvent toBookingEvent(BookingView view) {
+        return new BookingEvent(view.getBookingId(),
+                view.getItemId(),
+                view.getOwnerId(),
+                view.getBookerId(),
+                view.getStatus()
+        );
+    }
 }
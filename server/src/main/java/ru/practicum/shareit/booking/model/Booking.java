@@ -9,6 +9,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -47,4 +48,6 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     @Column(name = "status", length = 64)
     private BookingStatus status;
+    @Version
+    private Long version;
 }
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "booking_view", schema = "public")
+public class BookingView {
+    @Id
+    @Column(name = "booking_id")
+    private Long bookingId;
+    @Column(name = "start_date")
+    private LocalDateTime start;
+    @Column(name = "end_date")
+    private LocalDateTime end;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 64)
+    private BookingStatus status;
+    @Column(name = "item_id")
+    private Long itemId;
+    @Column(name = "item_name")
+    private String itemName;
+    @Column(name = "item_description")
+    private String itemDescription;
+    @Column(name = "item_available")
+    private Boolean itemAvailable;
+    @Column(name = "item_request_id")
+    private Long itemRequestId;
+    @Column(name = "owner_id")
+    private Long ownerId;
+    @Column(name = "booker_id")
+    private Long bookerId;
+    @Column(name = "booker_name")
+    private String bookerName;
+    @Column(name = "booker_email")
+    private String bookerEmail;
+    @Column(name = "version")
+    private Long version;
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingExportRow;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.datasource.ExportDataSource;
+
+import java.util.function.Consumer;
+
+@Repository
+public class BookingExportRepository {
+    private static final String COLUMNS = "id, start_date, end_date, item_id, booker_id, status";
+    private static final String SELECT_ROWS = """
+            SELECT b.id, b.start_date, b.end_date, b.status,
+                   i.id AS item_id, i.name AS item_name,
+                   u.id AS booker_id, u.name AS booker_name, u.email AS booker_email
+            FROM %s b
+            JOIN items i ON i.id = b.item_id
+            JOIN users u ON u.id = b.booker_id
+            WHERE i.owner_id = ? AND b.id > ?
+            ORDER BY b.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+
+    public BookingExportRepository(ExportDataSource exportDataSource,
+                                   @Value("${shareit.booking.partitioning.enabled:false}") boolean partitioned) {
+        this.jdbcTemplate = exportDataSource.getJdbcTemplate();
+        this.sql = SELECT_ROWS.formatted(partitioned
+                ? "(SELECT " + COLUMNS + " FROM bookings UNION ALL SELECT " + COLUMNS + " FROM bookings_archive)"
+                : "bookings");
+    }
+
+    public void forEachOwnerRow(long ownerId, long afterId, Consumer<BookingExportRow> action) {
+        jdbcTemplate.query(sql, rs -> {
+            action.accept(new BookingExportRow(
+                    rs.getLong("id"),
+                    rs.getTimestamp("start_date").toLocalDateTime(),
+                    rs.getTimestamp("end_date").toLocalDateTime(),
+                    BookingStatus.valueOf(rs.getString("status")),
+                    rs.getLong("item_id"),
+                    rs.getString("item_name"),
+                    rs.getLong("booker_id"),
+                    rs.getString("booker_name"),
+                    rs.getString("booker_email")));
+        }, ownerId, afterId);
+    }
+}
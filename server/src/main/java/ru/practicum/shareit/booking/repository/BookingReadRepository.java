@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingReadRepository {
+    List<BookingRow> findBookerRows(long bookerId, BookingStatus state, LocalDateTime now);
+
+    List<BookingRow> findOwnerRows(long ownerId, BookingStatus state, LocalDateTime now);
+
+    Stream<BookingRow> streamBookerRows(long bookerId, BookingStatus state, LocalDateTime now);
+
+    Stream<BookingRow> streamOwnerRows(long ownerId, BookingStatus state, LocalDateTime now);
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class BookingReadRepositoryImpl implements BookingReadRepository {
+    private static final String SELECT_ROWS = """
+        SELECT new ru.practicum.shareit.booking.dto.BookingRow(
+            v.bookingId, v.start, v.end, v.status,
+            v.itemId, v.itemName, v.itemDescription, v.itemAvailable, v.itemRequestId,
+            v.bookerId, v.bookerName, v.bookerEmail, v.version)
+        FROM BookingView v
+        """;
+    private static final String ORDER_BY_START_DESC = " ORDER BY v.start DESC";
+    private static final String BOOKER_CONDITION = "WHERE v.bookerId = :userId";
+    private static final String OWNER_CONDITION = "WHERE v.ownerId = :userId";
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<BookingRow> findBookerRows(long bookerId, BookingStatus state, LocalDateTime now) {
+        return findRows(BOOKER_CONDITION, bookerId, state, now);
+    }
+
+    @Override
+    public List<BookingRow> findOwnerRows(long ownerId, BookingStatus state, LocalDateTime now) {
+        return findRows(OWNER_CONDITION, ownerId, state, now);
+    }
+
+    @Override
+    public Stream<BookingRow> streamBookerRows(long bookerId, BookingStatus state, LocalDateTime now) {
+        return streamRows(BOOKER_CONDITION, bookerId, state, now);
+    }
+
+    @Override
+    public Stream<BookingRow> streamOwnerRows(long ownerId, BookingStatus state, LocalDateTime now) {
+        return streamRows(OWNER_CONDITION, ownerId, state, now);
+    }
+
+    private List<BookingRow> findRows(String userCondition, long userId, BookingStatus state, LocalDateTime now) {
+        TypedQuery<BookingRow> query = createQuery(userCondition, userId, state, now);
+        return query == null ? List.of() : query.getResultList();
+    }
+
+    private Stream<BookingRow> streamRows(String userCondition, long userId, BookingStatus state, LocalDateTime now) {
+        TypedQuery<BookingRow> query = createQuery(userCondition, userId, state, now);
+        if (query == null) {
+            return Stream.empty();
+        }
+        return query.setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private TypedQuery<BookingRow> createQuery(String userCondition, long userId, BookingStatus state,
+                                               LocalDateTime now) {
+        String stateCondition = switch (state) {
+            case ALL -> "";
+            case CURRENT -> " AND v.end > :now AND v.start < :now";
+            case FUTURE -> " AND v.start > :now";
+            case PAST -> " AND v.end < :now";
+            case WAITING, REJECTED, APPROVED -> " AND v.status = :status";
+            default -> null;
+        };
+        if (stateCondition == null) {
+            return null;
+        }
+
+        TypedQuery<BookingRow> query = entityManager.createQuery(
+                SELECT_ROWS + userCondition + stateCondition + ORDER_BY_START_DESC, BookingRow.class);
+        query.setParameter("userId", userId);
+        switch (state) {
+            case CURRENT, FUTURE, PAST -> query.setParameter("now", now);
+            case WAITING, REJECTED, APPROVED -> query.setParameter("status", state);
+        }
+        return query;
+    }
+}
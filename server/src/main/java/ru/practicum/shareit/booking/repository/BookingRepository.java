@@ -1,50 +1,56 @@
 package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface  BookingRepository extends JpaRepository<Booking, Long> {
-    @Query("""
-    SELECT (COUNT(b) > 0) FROM Booking b\s
-    WHERE b.item.id = :itemId\s
-        AND b.status = 'APPROVED'\s
-        AND b.start <= :end\s
-        AND b.end >= :start\s
-    """)
-    boolean isAvailable(@Param("itemId")Long itemId, @Param("start")LocalDateTime start, @Param("end")LocalDateTime end);
-
-    List<Booking> findByBookerId(Long bookerId, Sort sort);
-
-    List<Booking> findByItemOwnerId(Long ownerId, Sort sort);
+import static jakarta.persistence.LockModeType.PESSIMISTIC_WRITE;
 
+public interface  BookingRepository extends JpaRepository<Booking, Long>, BookingReadRepository,
+        BookingWriteRepository {
+    @EntityGraph(attributePaths = {"item", "booker"})
     Optional<Booking> findByIdAndItemOwnerId(Long id, Long ownerId);
 
-    List<Booking> findByBookerIdAndEndAfterAndStartBefore(Long bookerId, LocalDateTime now, LocalDateTime now1, Sort sort);
-
-    List<Booking> findByItemOwnerIdAndEndAfterAndStartBefore(Long ownerId, LocalDateTime now, LocalDateTime now1, Sort sort);
-
-    List<Booking> findByBookerIdAndStartAfter(Long bookerId, LocalDateTime now, Sort sort);
-
-    List<Booking> findByItemOwnerIdAndStartAfter(Long ownerId, LocalDateTime now, Sort sort);
-
-    List<Booking> findByBookerIdAndEndBefore(Long bookerId, LocalDateTime now, Sort sort);
-
-    List<Booking> findByItemOwnerIdAndEndBefore(Long ownerId, LocalDateTime now, Sort sort);
-
-    List<Booking> findByBookerIdAndStatusEquals(Long bookerId, BookingStatus status, Sort sort);
+    @Lock(PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT b FROM Booking b
+        JOIN FETCH b.item i
+        WHERE b.id IN :ids
+          AND i.owner.id = :ownerId
+        """)
+    List<Booking> lockOwnedByIds(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId);
 
-    List<Booking> findByItemOwnerIdAndStatusEquals(Long ownerId, BookingStatus status, Sort sort);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Booking b SET b.status = :status, b.version = b.version + 1
+        WHERE b.id IN :ids
+          AND b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING
+        """)
+    int updateWaitingStatus(@Param("ids") Collection<Long> ids, @Param("status") BookingStatus status);
+
+    @Query(value = """
+        SELECT id FROM bookings
+        WHERE status = 'WAITING'
+          AND start_date < :now
+        ORDER BY start_date
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<Long> claimStaleWaiting(@Param("now") LocalDateTime now, @Param("limit") int limit);
 
     Optional<Booking> findFirstByBookerAndItemOrderByStartDesc(User user, Item item);
 
@@ -64,9 +70,33 @@ public interface  BookingRepository extends JpaRepository<Booking, Long> {
         WHERE b.item.id = :itemId
           AND b.status = 'APPROVED'
           AND b.start > :now
+          AND b.end > :now
         ORDER BY b.start ASC
         """)
     List<Booking> findNextBooking(@Param("itemId") Long itemId,
                                   @Param("now") LocalDateTime now,
                                   Pageable pageable);
+
+    @Query("""
+        SELECT new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.start, b.end, b.item.id, b.booker.id, b.status)
+        FROM Booking b
+        WHERE b.item.id IN :itemIds
+          AND b.status = 'APPROVED'
+          AND b.start < :now
+          AND b.start = (SELECT MAX(l.start) FROM Booking l
+                         WHERE l.item.id = b.item.id AND l.status = 'APPROVED' AND l.start < :now)
+        """)
+    List<BookingDto> findLastBookings(@Param("itemIds") Collection<Long> itemIds, @Param("now") LocalDateTime now);
+
+    @Query("""
+        SELECT new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.start, b.end, b.item.id, b.booker.id, b.status)
+        FROM Booking b
+        WHERE b.item.id IN :itemIds
+          AND b.status = 'APPROVED'
+          AND b.start > :now
+          AND b.end > :now
+          AND b.start = (SELECT MIN(n.start) FROM Booking n
+                         WHERE n.item.id = b.item.id AND n.status = 'APPROVED' AND n.start > :now AND n.end > :now)
+        """)
+    List<BookingDto> findNextBookings(@Param("itemIds") Collection<Long> itemIds, @Param("now") LocalDateTime now);
 }
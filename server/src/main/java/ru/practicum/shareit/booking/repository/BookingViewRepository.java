@@ -0,0 +1,72 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.ItemBookingCounts;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface BookingViewRepository extends JpaRepository<BookingView, Long> {
+    @Modifying
+    @Query(value = """
+        INSERT INTO booking_view (booking_id, start_date, end_date, status, item_id, item_name, item_description,
+                                  item_available, item_request_id, owner_id, booker_id, booker_name, booker_email,
+                                  version)
+        SELECT b.id, b.start_date, b.end_date, b.status, i.id, i.name, i.description,
+               i.is_available, i.request_id, i.owner_id, u.id, u.name, u.email, b.version
+        FROM bookings b
+        JOIN items i ON i.id = b.item_id
+        JOIN users u ON u.id = b.booker_id
+        WHERE b.id = :bookingId
+        """, nativeQuery = true)
+    int insertFromBooking(@Param("bookingId") Long bookingId);
+
+    @Modifying
+    @Query("UPDATE BookingView v SET v.status = :status, v.version = :version WHERE v.bookingId = :bookingId")
+    int updateStatus(@Param("bookingId") Long bookingId,
+                     @Param("status") BookingStatus status,
+                     @Param("version") Long version);
+
+    @Modifying
+    @Query("UPDATE BookingView v SET v.status = :status, v.version = v.version + 1 WHERE v.bookingId IN :bookingIds")
+    int updateStatus(@Param("bookingIds") Collection<Long> bookingIds, @Param("status") BookingStatus status);
+
+    @Modifying
+    @Query("""
+        UPDATE BookingView v
+        SET v.itemName = :name, v.itemDescription = :description, v.itemAvailable = :available
+        WHERE v.itemId = :itemId
+        """)
+    int updateItem(@Param("itemId") Long itemId,
+                   @Param("name") String name,
+                   @Param("description") String description,
+                   @Param("available") Boolean available);
+
+    @Modifying
+    @Query("UPDATE BookingView v SET v.bookerName = :name, v.bookerEmail = :email WHERE v.bookerId = :bookerId")
+    int updateBooker(@Param("bookerId") Long bookerId, @Param("name") String name, @Param("email") String email);
+
+    @Query("""
+        SELECT new ru.practicum.shareit.booking.dto.ItemBookingCounts(
+            v.itemId,
+            v.itemName,
+            COUNT(v),
+            SUM(CASE WHEN v.end > :now AND v.start < :now THEN 1 ELSE 0 END),
+            SUM(CASE WHEN v.end < :now THEN 1 ELSE 0 END),
+            SUM(CASE WHEN v.start > :now THEN 1 ELSE 0 END),
+            SUM(CASE WHEN v.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING THEN 1 ELSE 0 END),
+            SUM(CASE WHEN v.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED THEN 1 ELSE 0 END),
+            SUM(CASE WHEN v.status = ru.practicum.shareit.booking.model.BookingStatus.REJECTED THEN 1 ELSE 0 END))
+        FROM BookingView v
+        WHERE v.ownerId = :ownerId
+        GROUP BY v.itemId, v.itemName
+        ORDER BY v.itemId
+        """)
+    List<ItemBookingCounts> countByOwnerPerItem(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now);
+}
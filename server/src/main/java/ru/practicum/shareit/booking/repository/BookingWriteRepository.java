@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.repository;
+
+import java.time.LocalDateTime;
+
+public interface BookingWriteRepository {
+    Long insertIfBookable(long itemId, long bookerId, LocalDateTime start, LocalDateTime end);
+
+    Rejection explainRejection(long itemId, long bookerId, LocalDateTime start, LocalDateTime end);
+
+    enum Rejection {
+        BOOKER_NOT_FOUND,
+        ITEM_NOT_FOUND,
+        ITEM_UNAVAILABLE,
+        DATES_TAKEN,
+        OWN_ITEM,
+        NONE
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class BookingWriteRepositoryImpl implements BookingWriteRepository {
+    private static final String APPROVED_OVERLAP = """
+        SELECT 1 FROM bookings b
+        WHERE b.item_id = i.id
+          AND b.status = 'APPROVED'
+          AND b.start_date <= CAST(:end AS TIMESTAMP)
+          AND b.end_date >= CAST(:start AS TIMESTAMP)
+        """;
+
+    private static final String INSERT_IF_BOOKABLE = """
+        INSERT INTO bookings (start_date, end_date, item_id, booker_id, status)
+        SELECT CAST(:start AS TIMESTAMP), CAST(:end AS TIMESTAMP), i.id, u.id, 'WAITING'
+        FROM items i
+        JOIN users u ON u.id = :bookerId
+        WHERE i.id = :itemId
+          AND i.is_available
+          AND i.owner_id <> u.id
+          AND NOT EXISTS (%s)
+        """.formatted(APPROVED_OVERLAP);
+
+    private static final String EXPLAIN_REJECTION = """
+        SELECT u.id AS booker_id, i.id AS item_id, i.is_available, i.owner_id,
+               EXISTS (%s) AS overlaps
+        FROM (SELECT 1 AS probe) p
+        LEFT JOIN users u ON u.id = :bookerId
+        LEFT JOIN items i ON i.id = :itemId
+        """.formatted(APPROVED_OVERLAP);
+
+    private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public Long insertIfBookable(long itemId, long bookerId, LocalDateTime start, LocalDateTime end) {
+        entityManager.flush();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update(INSERT_IF_BOOKABLE, parameters(itemId, bookerId, start, end),
+                keyHolder, new String[]{"id"});
+        return inserted == 0 ? null : keyHolder.getKeyAs(Long.class);
+    }
+
+    @Override
+    public Rejection explainRejection(long itemId, long bookerId, LocalDateTime start, LocalDateTime end) {
+        return jdbcTemplate.queryForObject(EXPLAIN_REJECTION, parameters(itemId, bookerId, start, end), (rs, rowNum) -> {
+            if (rs.getObject("booker_id") == null) {
+                return Rejection.BOOKER_NOT_FOUND;
+            }
+            if (rs.getObject("item_id") == null) {
+                return Rejection.ITEM_NOT_FOUND;
+            }
+            if (!rs.getBoolean("is_available")) {
+                return Rejection.ITEM_UNAVAILABLE;
+            }
+            if (rs.getBoolean("overlaps")) {
+                return Rejection.DATES_TAKEN;
+            }
+            if (rs.getLong("owner_id") == bookerId) {
+                return Rejection.OWN_ITEM;
+            }
+            return Rejection.NONE;
+        });
+    }
+
+    private MapSqlParameterSource parameters(long itemId, long bookerId, LocalDateTime start, LocalDateTime end) {
+        return new MapSqlParameterSource()
+                .addValue("itemId", itemId)
+                .addValue("bookerId", bookerId)
+                .addValue("start", start)
+                .addValue("end", end);
+    }
+}
@@ -0,0 +1,129 @@
+package ru.practicum.shareit.booking.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEvent;
+import ru.practicum.shareit.outbox.OutboxEvent;
+import ru.practicum.shareit.outbox.OutboxSubscriber;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class BookingEventStream implements OutboxSubscriber {
+    private static final String BOOKING_AGGREGATE = "booking";
+    private static final int RECENT_EVENT_IDS = 10_000;
+
+    private final ConcurrentMap<Long, Set<BookingStreamConnection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Set<Long> recentEventIds = ConcurrentHashMap.newKeySet();
+    private final Queue<Long> recentEventOrder = new ConcurrentLinkedQueue<>();
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final int bufferSize;
+    private final Counter dropped;
+
+    public BookingEventStream(ObjectMapper objectMapper,
+                              MeterRegistry registry,
+                              @Value("${shareit.stream.timeout:30m}") Duration timeout,
+                              @Value("${shareit.stream.heartbeat:15s}") Duration heartbeat,
+                              @Value("${shareit.stream.buffer-size:32}") int bufferSize) {
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.bufferSize = bufferSize;
+        this.dropped = registry.counter("shareit.stream.dropped");
+        Gauge.builder("shareit.stream.connections", connectionCount, AtomicInteger::get)
+                .register(registry);
+    }
+
+    public SseEmitter connect(long userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        BookingStreamConnection connection = new BookingStreamConnection(userId, emitter, bufferSize, heartbeat);
+        emitter.onCompletion(() -> disconnect(connection));
+        emitter.onTimeout(() -> disconnect(connection));
+        emitter.onError(e -> disconnect(connection));
+
+        connections.compute(userId, (id, userConnections) -> {
+            Set<BookingStreamConnection> updated = userConnections != null
+                    ? userConnections : ConcurrentHashMap.newKeySet();
+            updated.add(connection);
+            return updated;
+        });
+        connectionCount.incrementAndGet();
+        connection.start();
+        return emitter;
+    }
+
+    @Override
+    public void onEvent(OutboxEvent event) {
+        if (!BOOKING_AGGREGATE.equals(event.getAggregateType())) {
+            return;
+        }
+        BookingEvent booking = readBookingEvent(event);
+        if (!firstDelivery(event.getId())) {
+            log.debug("Событие {} уже доставлено, повтор пропущен", event.getId());
+            return;
+        }
+        BookingStreamConnection.Message message = new BookingStreamConnection.Message(
+                String.valueOf(event.getId()), event.getEventType().name(), event.getPayload());
+
+        deliver(booking.ownerId(), message);
+        if (!booking.bookerId().equals(booking.ownerId())) {
+            deliver(booking.bookerId(), message);
+        }
+    }
+
+    private void deliver(Long userId, BookingStreamConnection.Message message) {
+        for (BookingStreamConnection connection : connections.getOrDefault(userId, Set.of())) {
+            if (!connection.offer(message)) {
+                log.warn("Буфер потока событий пользователя {} переполнен, соединение закрыто", userId);
+                dropped.increment();
+                connection.close();
+            }
+        }
+    }
+
+    private boolean firstDelivery(Long eventId) {
+        if (!recentEventIds.add(eventId)) {
+            return false;
+        }
+        recentEventOrder.add(eventId);
+        if (recentEventIds.size() > RECENT_EVENT_IDS) {
+            recentEventIds.remove(recentEventOrder.poll());
+        }
+        return true;
+    }
+
+    private void disconnect(BookingStreamConnection connection) {
+        connection.stop();
+        connections.computeIfPresent(connection.getUserId(), (id, userConnections) -> {
+            if (userConnections.remove(connection)) {
+                connectionCount.decrementAndGet();
+            }
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    private BookingEvent readBookingEvent(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), BookingEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Некорректное событие брони " + event.getId(), e);
+        }
+    }
+}
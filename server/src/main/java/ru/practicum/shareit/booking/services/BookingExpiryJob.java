@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+public class BookingExpiryJob {
+    private final BookingService bookingService;
+    private final int batchSize;
+    private final Counter expired;
+
+    public BookingExpiryJob(BookingService bookingService,
+                            MeterRegistry registry,
+                            @Value("${shareit.booking.expiry.batch-size:100}") int batchSize) {
+        this.bookingService = bookingService;
+        this.batchSize = batchSize;
+        this.expired = registry.counter("shareit.booking.expired");
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval:PT1M}")
+    public void expire() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int processed;
+        do {
+            processed = bookingService.expireStaleWaiting(now, batchSize);
+            expired.increment(processed);
+            total += processed;
+        } while (processed == batchSize);
+        if (total > 0) {
+            log.info("Отменено {} неподтвержденных бронирований с истекшей датой начала", total);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+public class BookingExport implements StreamingResponseBody {
+    private final Semaphore permits;
+    private final StreamingResponseBody body;
+    private final AtomicBoolean settled = new AtomicBoolean();
+
+    BookingExport(Semaphore permits, StreamingResponseBody body) {
+        this.permits = permits;
+        this.body = body;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (!settled.compareAndSet(false, true)) {
+            throw new IllegalStateException("Выгрузка уже отменена или выполнена");
+        }
+        try {
+            body.writeTo(out);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void cancel() {
+        if (settled.compareAndSet(false, true)) {
+            permits.release();
+            log.warn("Выгрузка отменена до начала записи, канал выгрузки освобожден");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ru.practicum.shareit.booking.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
+import ru.practicum.shareit.booking.dto.BookingExportRow;
+import ru.practicum.shareit.booking.repository.BookingExportRepository;
+import ru.practicum.shareit.datasource.ExportDataSource;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+import ru.practicum.shareit.user.exception.UserNotFoundException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Service
+public class BookingExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER =
+            "id,start,end,status,item_id,item_name,booker_id,booker_name,booker_email\n";
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final BookingExportRepository exportRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter jsonWriter;
+    private final MeterRegistry registry;
+    private final Semaphore permits;
+
+    public BookingExportService(BookingExportRepository exportRepository,
+                                UserRepository userRepository,
+                                ObjectMapper objectMapper,
+                                MeterRegistry registry,
+                                ExportDataSource exportDataSource) {
+        this.exportRepository = exportRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.jsonWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        this.registry = registry;
+        int poolSize = exportDataSource.getPoolSize();
+        this.permits = new Semaphore(poolSize);
+        Gauge.builder("shareit.export.active", permits, semaphore -> poolSize - semaphore.availablePermits())
+                .register(registry);
+    }
+
+    public BookingExport exportOwnerBookings(long ownerId, BookingExportFormat format, long afterId) {
+        if (!userRepository.existsById(ownerId)) {
+            throw new UserNotFoundException(ownerId);
+        }
+        if (!permits.tryAcquire()) {
+            throw new ServiceUnavailableException("Все каналы выгрузки заняты, повторите запрос позже");
+        }
+        return new BookingExport(permits, out -> {
+            LongAdder rows = new LongAdder();
+            long started = System.nanoTime();
+            boolean completed = false;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                switch (format) {
+                    case CSV -> writeCsv(writer, ownerId, afterId, rows);
+                    case NDJSON -> writeNdjson(writer, ownerId, afterId, rows);
+                }
+                completed = true;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                long elapsed = System.nanoTime() - started;
+                registry.counter("shareit.export.rows", "format", format.getExtension()).increment(rows.sum());
+                registry.timer("shareit.export.duration", "format", format.getExtension(),
+                                "outcome", completed ? "completed" : "aborted")
+                        .record(elapsed, TimeUnit.NANOSECONDS);
+                log.info("Выгрузка бронирований владельца {} {}: строк {}, начиная после id {}, {} мс, {} строк/с",
+                        ownerId, completed ? "завершена" : "прервана", rows.sum(), afterId,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed),
+                        rows.sum() * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+            }
+        });
+    }
+
+    private void writeCsv(Writer writer, long ownerId, long afterId, LongAdder rows) throws IOException {
+        if (afterId == 0) {
+            writer.write(CSV_HEADER);
+        }
+        exportRepository.forEachOwnerRow(ownerId, afterId, row -> {
+            try {
+                writeCsvRow(writer, row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows.increment();
+        });
+    }
+
+    private void writeCsvRow(Writer writer, BookingExportRow row) throws IOException {
+        writer.write(Long.toString(row.id()));
+        writer.write(',');
+        writer.write(row.start().toString());
+        writer.write(',');
+        writer.write(row.end().toString());
+        writer.write(',');
+        writer.write(row.status().name());
+        writer.write(',');
+        writer.write(Long.toString(row.itemId()));
+        writer.write(',');
+        writeCsvField(writer, row.itemName());
+        writer.write(',');
+        writer.write(Long.toString(row.bookerId()));
+        writer.write(',');
+        writeCsvField(writer, row.bookerName());
+        writer.write(',');
+        writeCsvField(writer, row.bookerEmail());
+        writer.write('\n');
+    }
+
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        String safe = !value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (safe.indexOf(',') < 0 && safe.indexOf('"') < 0 && safe.indexOf('\n') < 0 && safe.indexOf('\r') < 0) {
+            writer.write(safe);
+            return;
+        }
+        writer.write('"');
+        writer.write(safe.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private void writeNdjson(Writer writer, long ownerId, long afterId, LongAdder rows) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            exportRepository.forEachOwnerRow(ownerId, afterId, row -> {
+                try {
+                    jsonWriter.writeValue(generator, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows.increment();
+            });
+            if (rows.sum() > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package ru.practicum.shareit.booking.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty(name = "shareit.booking.partitioning.enabled")
+public class BookingPartitionManager {
+    private static final Pattern PARTITION_NAME = Pattern.compile("bookings_(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("'bookings_'yyyy_MM");
+    private static final long MAINTENANCE_LOCK_ID = "bookings-partitioning".hashCode();
+    private static final String COLUMNS = "id, start_date, end_date, item_id, booker_id, status, version";
+
+    private static final String CREATE_PARTITIONED = """
+            CREATE TABLE bookings (
+                id         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                item_id    BIGINT NOT NULL,
+                booker_id  BIGINT NOT NULL,
+                status     VARCHAR(64) NOT NULL,
+                version    BIGINT NOT NULL DEFAULT 0,
+
+                CONSTRAINT bookings_pkey PRIMARY KEY (id, end_date),
+                CONSTRAINT bookings_item_fk FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE,
+                CONSTRAINT bookings_booker_fk FOREIGN KEY (booker_id) REFERENCES users(id) ON DELETE CASCADE
+            ) PARTITION BY RANGE (end_date)
+            """;
+
+    private static final String CREATE_ARCHIVE = """
+            CREATE TABLE IF NOT EXISTS bookings_archive (
+                id         BIGINT PRIMARY KEY,
+                start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                item_id    BIGINT NOT NULL,
+                booker_id  BIGINT NOT NULL,
+                status     VARCHAR(64) NOT NULL,
+                version    BIGINT NOT NULL DEFAULT 0
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean maintainOnStartup;
+
+    public BookingPartitionManager(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${shareit.booking.partitioning.months-ahead:3}") int monthsAhead,
+                                   @Value("${shareit.booking.partitioning.retention-months:12}") int retentionMonths,
+                                   @Value("${shareit.startup.database-tasks.enabled:true}") boolean maintainOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.maintainOnStartup = maintainOnStartup;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!maintainOnStartup) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            jdbcTemplate.execute(CREATE_ARCHIVE);
+            jdbcTemplate.execute("ALTER TABLE bookings_archive ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0");
+            if (!isPartitioned()) {
+                convert();
+            }
+        });
+        maintain();
+    }
+
+    @Scheduled(cron = "${shareit.booking.partitioning.cron:0 0 3 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        YearMonth cutoff = current.minusMonths(retentionMonths);
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            for (YearMonth month = cutoff; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+                ensurePartition(month);
+            }
+            archiveBefore(cutoff);
+        });
+    }
+
+    private void lock() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + MAINTENANCE_LOCK_ID + ")");
+    }
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('bookings'))",
+                Boolean.class));
+    }
+
+    private void convert() {
+        log.info("Переводим таблицу bookings на секционирование по end_date");
+        jdbcTemplate.execute("ALTER TABLE booking_view DROP CONSTRAINT IF EXISTS booking_view_booking_fk");
+        addConstraintIfMissing("booking_view", "booking_view_item_fk",
+                "FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE");
+        addConstraintIfMissing("booking_view", "booking_view_booker_fk",
+                "FOREIGN KEY (booker_id) REFERENCES users(id) ON DELETE CASCADE");
+
+        jdbcTemplate.execute("ALTER TABLE bookings RENAME TO bookings_unpartitioned");
+        jdbcTemplate.execute("ALTER TABLE bookings_unpartitioned RENAME CONSTRAINT bookings_pkey TO bookings_unpartitioned_pkey");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS bookings_status_start_idx");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS bookings_item_id_idx");
+        jdbcTemplate.execute(CREATE_PARTITIONED);
+        jdbcTemplate.execute("CREATE TABLE bookings_default PARTITION OF bookings DEFAULT");
+        jdbcTemplate.execute("CREATE INDEX bookings_status_start_idx ON bookings (status, start_date)");
+        jdbcTemplate.execute("CREATE INDEX bookings_item_id_idx ON bookings (item_id, id)");
+        jdbcTemplate.update("INSERT INTO bookings (" + COLUMNS + ") SELECT " + COLUMNS + " FROM bookings_unpartitioned");
+        jdbcTemplate.queryForObject(
+                "SELECT setval(pg_get_serial_sequence('bookings', 'id'), COALESCE(MAX(id), 0) + 1, false) FROM bookings",
+                Long.class);
+        jdbcTemplate.execute("DROP TABLE bookings_unpartitioned");
+    }
+
+    private void addConstraintIfMissing(String table, String name, String definition) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ?)", Boolean.class, name);
+        if (!Boolean.TRUE.equals(exists)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " " + definition);
+        }
+    }
+
+    private void ensurePartition(YearMonth month) {
+        String name = month.format(PARTITION_FORMAT);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE bookings INCLUDING DEFAULTS)");
+        int moved = jdbcTemplate.update("""
+                WITH moved AS (
+                    DELETE FROM bookings_default
+                    WHERE end_date >= ? AND end_date < ?
+                    RETURNING %1$s
+                )
+                INSERT INTO %2$s (%1$s) SELECT %1$s FROM moved
+                """.formatted(COLUMNS, name), from, to);
+        jdbcTemplate.execute("ALTER TABLE bookings ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        log.info("Создана секция {} для бронирований с {} по {}, перенесено строк: {}", name, from, to, moved);
+    }
+
+    private void archiveBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'bookings'::regclass
+                """, String.class);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE bookings DETACH PARTITION " + partition);
+                int archived = jdbcTemplate.update("INSERT INTO bookings_archive (" + COLUMNS + ") SELECT " + COLUMNS
+                        + " FROM " + partition + " ON CONFLICT (id) DO NOTHING");
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Секция {} перенесена в архив, строк: {}", partition, archived);
+            }
+        }
+        int archived = jdbcTemplate.update("""
+                WITH moved AS (
+                    DELETE FROM bookings_default
+                    WHERE end_date < ?
+                    RETURNING %1$s
+                )
+                INSERT INTO bookings_archive (%1$s) SELECT %1$s FROM moved
+                ON CONFLICT (id) DO NOTHING
+                """.formatted(COLUMNS), cutoff.atDay(1));
+        if (archived > 0) {
+            log.info("Из секции по умолчанию перенесено в архив строк: {}", archived);
+        }
+    }
+}
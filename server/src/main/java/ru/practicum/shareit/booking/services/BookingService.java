@@ -1,20 +1,35 @@
 package ru.practicum.shareit.booking.services;
 
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.OwnerBookingSummaryDto;
+import ru.practicum.shareit.streaming.RowSource;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 public interface BookingService {
     BookingResponseDto create(BookingDto bookingDto, long id);
 
-    BookingResponseDto approve(long bookingId, boolean approved, long ownerId);
+    BookingResponseDto approve(long bookingId, boolean approved, long ownerId, Long expectedVersion);
+
+    List<BookingDecisionResultDto> approveAll(List<BookingDecisionDto> decisions, long ownerId);
+
+    int expireStaleWaiting(LocalDateTime now, int limit);
 
     BookingResponseDto findById(long bookingId, long userId);
 
     List<BookingResponseDto> findByBookerId(long bookerId, String status);
 
     List<BookingResponseDto> findByOwnerId(long ownerId, String status);
+
+    RowSource<BookingResponseDto> streamByBookerId(long bookerId, String status);
+
+    RowSource<BookingResponseDto> streamByOwnerId(long ownerId, String status);
+
+    OwnerBookingSummaryDto getOwnerSummary(long ownerId, boolean byItem);
 }
@@ -1,40 +1,67 @@
 package ru.practicum.shareit.booking.services;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionOutcome;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.ItemBookingCounts;
+import ru.practicum.shareit.booking.dto.OwnerBookingSummaryDto;
 import ru.practicum.shareit.booking.exception.BookingNotFoundException;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingView;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingViewRepository;
+import ru.practicum.shareit.booking.repository.BookingWriteRepository;
 import ru.practicum.shareit.exception.BusinessException;
 import ru.practicum.shareit.exception.DataConflictException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
-import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.outbox.OutboxPublisher;
+import ru.practicum.shareit.streaming.RowSource;
+import ru.practicum.shareit.streaming.RowSources;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.version.OptimisticRetry;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static ru.practicum.shareit.booking.model.BookingStatus.APPROVED;
+import static ru.practicum.shareit.booking.model.BookingStatus.CANCELED;
 import static ru.practicum.shareit.booking.model.BookingStatus.REJECTED;
 import static ru.practicum.shareit.booking.model.BookingStatus.WAITING;
+import static ru.practicum.shareit.outbox.OutboxEventType.BOOKING_APPROVED;
+import static ru.practicum.shareit.outbox.OutboxEventType.BOOKING_CANCELED;
+import static ru.practicum.shareit.outbox.OutboxEventType.BOOKING_CREATED;
+import static ru.practicum.shareit.outbox.OutboxEventType.BOOKING_REJECTED;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final int MAX_DECISIONS = 100;
+
     private final BookingRepository bookingRepository;
+    private final BookingViewRepository bookingViewRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
-    private static final Sort BY_START_DESC = Sort.by(Sort.Direction.DESC, "start");
+    private final OutboxPublisher outboxPublisher;
+    private final OptimisticRetry optimisticRetry;
+    private final RowSources rowSources;
 
     @Override
     @Transactional(readOnly = true)
@@ -56,24 +83,9 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @Transactional(readOnly = true)
     public List<BookingResponseDto> findByBookerId(long bookerId, String status) {
-        userRepository.findById(bookerId)
-                .orElseThrow(() -> new UserNotFoundException(bookerId));
-        BookingStatus bookingStatus = BookingStatus.valueOfOrNull(status);
-        if (bookingStatus == null) {
-            throw new DataConflictException("Некорректный статус брони: " + status);
-        }
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> listBooking = switch (bookingStatus) {
-            case ALL -> bookingRepository.findByBookerId(bookerId, BY_START_DESC);
-            case CURRENT -> bookingRepository.findByBookerIdAndEndAfterAndStartBefore(bookerId, now, now, BY_START_DESC);
-            case FUTURE -> bookingRepository.findByBookerIdAndStartAfter(bookerId, now, BY_START_DESC);
-            case PAST -> bookingRepository.findByBookerIdAndEndBefore(bookerId, now, BY_START_DESC);
-            case WAITING, REJECTED, APPROVED ->
-                    bookingRepository.findByBookerIdAndStatusEquals(bookerId, bookingStatus, BY_START_DESC);
-            default -> new ArrayList<>();
-        };
-
-        return listBooking.stream()
+        BookingStatus bookingStatus = parseState(bookerId, status);
+        return bookingRepository.findBookerRows(bookerId, bookingStatus, LocalDateTime.now())
+                .stream()
                 .map(BookingMapper::toBookingResponseDto)
                 .toList();
     }
@@ -81,73 +93,192 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @Transactional(readOnly = true)
     public List<BookingResponseDto> findByOwnerId(long ownerId, String status) {
-        userRepository.findById(ownerId)
-                .orElseThrow(() -> new UserNotFoundException(ownerId));
+        BookingStatus bookingStatus = parseState(ownerId, status);
+        return bookingRepository.findOwnerRows(ownerId, bookingStatus, LocalDateTime.now())
+                .stream()
+                .map(BookingMapper::toBookingResponseDto)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RowSource<BookingResponseDto> streamByBookerId(long bookerId, String status) {
+        BookingStatus bookingStatus = parseState(bookerId, status);
+        LocalDateTime now = LocalDateTime.now();
+        return rowSources.of(() -> bookingRepository.streamBookerRows(bookerId, bookingStatus, now),
+                BookingMapper::toBookingResponseDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RowSource<BookingResponseDto> streamByOwnerId(long ownerId, String status) {
+        BookingStatus bookingStatus = parseState(ownerId, status);
+        LocalDateTime now = LocalDateTime.now();
+        return rowSources.of(() -> bookingRepository.streamOwnerRows(ownerId, bookingStatus, now),
+                BookingMapper::toBookingResponseDto);
+    }
+
+    private BookingStatus parseState(long userId, String status) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
         BookingStatus bookingStatus = BookingStatus.valueOfOrNull(status);
         if (bookingStatus == null) {
             throw new DataConflictException("Некорректный статус брони: " + status);
         }
+        return bookingStatus;
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> listBooking = switch (bookingStatus) {
-            case ALL -> bookingRepository.findByItemOwnerId(ownerId, BY_START_DESC);
-            case CURRENT ->
-                    bookingRepository.findByItemOwnerIdAndEndAfterAndStartBefore(ownerId, now, now, BY_START_DESC);
-            case FUTURE ->
-                    bookingRepository.findByItemOwnerIdAndStartAfter(ownerId, now, BY_START_DESC);
-            case PAST -> bookingRepository.findByItemOwnerIdAndEndBefore(ownerId, now, BY_START_DESC);
-            case WAITING, REJECTED, APPROVED ->
-                    bookingRepository.findByItemOwnerIdAndStatusEquals(ownerId, bookingStatus, BY_START_DESC);
-            default -> new ArrayList<>();
-        };
+    @Override
+    @Transactional(readOnly = true)
+    public OwnerBookingSummaryDto getOwnerSummary(long ownerId, boolean byItem) {
+        userRepository.findById(ownerId)
+                .orElseThrow(() -> new UserNotFoundException(ownerId));
+        List<ItemBookingCounts> items = bookingViewRepository.countByOwnerPerItem(ownerId, LocalDateTime.now());
 
-        return listBooking.stream()
-                .map(BookingMapper::toBookingResponseDto)
-                .toList();
+        OwnerBookingSummaryDto summary = new OwnerBookingSummaryDto();
+        for (ItemBookingCounts item : items) {
+            summary.setAll(summary.getAll() + item.all());
+            summary.setCurrent(summary.getCurrent() + item.current());
+            summary.setPast(summary.getPast() + item.past());
+            summary.setFuture(summary.getFuture() + item.future());
+            summary.setWaiting(summary.getWaiting() + item.waiting());
+            summary.setApproved(summary.getApproved() + item.approved());
+            summary.setRejected(summary.getRejected() + item.rejected());
+        }
+        if (byItem) {
+            summary.setItems(items);
+        }
+        return summary;
     }
 
     @Override
     @Transactional
     public BookingResponseDto create(BookingDto bookingDto, long bookerId) {
-        User booker = userRepository.findById(bookerId)
-                .orElseThrow(() -> new UserNotFoundException(bookerId));
-        bookingDto.setBookerId(booker.getId());
-        long id = bookingDto.getItemId();
-        Item item = itemRepository.findById(id)
-                .orElseThrow(() -> new ItemNotFoundException(id));
-
-        if (!item.getAvailable()) {
-            throw new BusinessException("Предмет недоступен");
-        }
-        if (bookingRepository.isAvailable(item.getId(), bookingDto.getStart(), bookingDto.getEnd())) {
-            throw new BusinessException("Предмет на эти даты недоступен");
-        }
-        if (item.getOwner().getId().equals(bookerId)) {
-            throw new BusinessException("Владелец не может создать бронь");
+        long itemId = bookingDto.getItemId();
+        Long bookingId = bookingRepository.insertIfBookable(itemId, bookerId, bookingDto.getStart(), bookingDto.getEnd());
+        if (bookingId == null) {
+            throw rejection(bookingRepository.explainRejection(itemId, bookerId, bookingDto.getStart(),
+                    bookingDto.getEnd()), itemId, bookerId);
         }
+        bookingViewRepository.insertFromBooking(bookingId);
+        BookingView view = bookingViewRepository.findById(bookingId)
+                .orElseThrow(() -> new BookingNotFoundException(bookingId));
+        outboxPublisher.publish(BOOKING_CREATED, bookingId, BookingMapper.toBookingEvent(view));
+        return BookingMapper.toBookingResponseDto(view);
+    }
 
-        Booking booking = Booking.builder()
-                .start(bookingDto.getStart())
-                .end(bookingDto.getEnd())
-                .item(item)
-                .booker(booker)
-                .status(WAITING)
-                .build();
-        return BookingMapper.toBookingResponseDto(bookingRepository.save(booking));
+    private RuntimeException rejection(BookingWriteRepository.Rejection rejection, long itemId, long bookerId) {
+        return switch (rejection) {
+            case BOOKER_NOT_FOUND -> new UserNotFoundException(bookerId);
+            case ITEM_NOT_FOUND -> new ItemNotFoundException(itemId);
+            case ITEM_UNAVAILABLE -> new BusinessException("Предмет недоступен");
+            case DATES_TAKEN -> new BusinessException("Предмет на эти даты недоступен");
+            case OWN_ITEM -> new BusinessException("Владелец не может создать бронь");
+            case NONE -> new DataConflictException("Не удалось создать бронь, повторите запрос");
+        };
     }
 
     @Override
-    @Transactional
-    public BookingResponseDto approve(long bookingId, boolean approved, long ownerId) {
+    public BookingResponseDto approve(long bookingId, boolean approved, long ownerId, Long expectedVersion) {
+        return optimisticRetry.execute("booking.approve",
+                () -> decide(bookingId, approved, ownerId, expectedVersion));
+    }
+
+    private BookingResponseDto decide(long bookingId, boolean approved, long ownerId, Long expectedVersion) {
         Booking booking = bookingRepository.findByIdAndItemOwnerId(bookingId, ownerId)
                 .orElseThrow(() -> new BusinessException("Подтвердить бронь может только владелец"));
+        if (expectedVersion != null && !expectedVersion.equals(booking.getVersion())) {
+            throw new PreconditionFailedException("Бронирование " + bookingId + " было изменено, версия "
+                    + booking.getVersion());
+        }
 
         if (booking.getStatus().equals(WAITING)) {
             booking.setStatus(approved ? APPROVED : REJECTED);
+            booking = bookingRepository.saveAndFlush(booking);
+            bookingViewRepository.updateStatus(bookingId, booking.getStatus(), booking.getVersion());
+            outboxPublisher.publish(approved ? BOOKING_APPROVED : BOOKING_REJECTED, bookingId,
+                    BookingMapper.toBookingEvent(booking));
         } else {
             throw new BusinessException("Нельзя подтвердить бронирование в статусе " + booking.getStatus());
         }
-        return BookingMapper.toBookingResponseDto(bookingRepository.save(booking));
+        return BookingMapper.toBookingResponseDto(booking);
     }
 
+    @Override
+    @Transactional
+    public List<BookingDecisionResultDto> approveAll(List<BookingDecisionDto> decisions, long ownerId) {
+        if (decisions.size() > MAX_DECISIONS) {
+            throw new BusinessException("За один запрос можно обработать не больше " + MAX_DECISIONS + " бронирований");
+        }
+        Set<Long> ids = decisions.stream()
+                .filter(this::isValidDecision)
+                .map(BookingDecisionDto::getBookingId)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> bookings = ids.isEmpty() ? Map.of() : bookingRepository.lockOwnedByIds(ids, ownerId).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        List<BookingDecisionResultDto> results = new ArrayList<>(decisions.size());
+        List<Booking> approvedBookings = new ArrayList<>();
+        List<Booking> rejectedBookings = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (BookingDecisionDto decision : decisions) {
+            if (!isValidDecision(decision)) {
+                Long id = decision != null ? decision.getBookingId() : null;
+                results.add(new BookingDecisionResultDto(id, BookingDecisionOutcome.INVALID, null));
+                continue;
+            }
+            Long id = decision.getBookingId();
+            Booking booking = bookings.get(id);
+            if (!seen.add(id)) {
+                results.add(new BookingDecisionResultDto(id, BookingDecisionOutcome.DUPLICATE, null));
+            } else if (booking == null) {
+                results.add(new BookingDecisionResultDto(id, BookingDecisionOutcome.NOT_FOUND, null));
+            } else if (booking.getStatus() != WAITING) {
+                results.add(new BookingDecisionResultDto(id, BookingDecisionOutcome.NOT_WAITING, booking.getStatus()));
+            } else {
+                BookingStatus status = decision.getApproved() ? APPROVED : REJECTED;
+                (status == APPROVED ? approvedBookings : rejectedBookings).add(booking);
+                results.add(new BookingDecisionResultDto(id, BookingDecisionOutcome.APPLIED, status));
+            }
+        }
+        applyDecision(approvedBookings, APPROVED, BOOKING_APPROVED);
+        applyDecision(rejectedBookings, REJECTED, BOOKING_REJECTED);
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public int expireStaleWaiting(LocalDateTime now, int limit) {
+        List<Long> ids = bookingRepository.claimStaleWaiting(now, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        bookingRepository.updateWaitingStatus(ids, CANCELED);
+        bookingViewRepository.updateStatus(ids, CANCELED);
+        for (BookingView view : bookingViewRepository.findAllById(ids)) {
+            outboxPublisher.publish(BOOKING_CANCELED, view.getBookingId(), BookingMapper.toBookingEvent(view));
+        }
+        return ids.size();
+    }
+
+    private boolean isValidDecision(BookingDecisionDto decision) {
+        return decision != null && decision.getBookingId() != null && decision.getApproved() != null;
+    }
+
+    private void applyDecision(List<Booking> bookings, BookingStatus status, OutboxEventType eventType) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        List<Long> ids = bookings.stream().map(Booking::getId).toList();
+        int updated = bookingRepository.updateWaitingStatus(ids, status);
+        if (updated != ids.size()) {
+            throw new DataConflictException("Статус части бронирований изменился во время обработки");
+        }
+        bookingViewRepository.updateStatus(ids, status);
+        for (Booking booking : bookings) {
+            booking.setStatus(status);
+            outboxPublisher.publish(eventType, booking.getId(), BookingMapper.toBookingEvent(booking));
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.booking.services;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+class BookingStreamConnection {
+    @Getter
+    private final long userId;
+    @Getter
+    private final SseEmitter emitter;
+    private final BlockingQueue<Message> buffer;
+    private final Duration heartbeat;
+    private volatile Thread worker;
+
+    BookingStreamConnection(long userId, SseEmitter emitter, int bufferSize, Duration heartbeat) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.heartbeat = heartbeat;
+    }
+
+    void start() {
+        worker = Thread.ofVirtual().name("booking-stream-" + userId).start(this::run);
+    }
+
+    boolean offer(Message event) {
+        return buffer.offer(event);
+    }
+
+    void close() {
+        emitter.complete();
+        stop();
+    }
+
+    void stop() {
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Message event = buffer.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                emitter.send(event != null ? event.toSseEvent() : SseEmitter.event().comment("heartbeat"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Поток событий пользователя {} закрыт: {}", userId, e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    record Message(String id, String name, String data) {
+        SseEmitter.SseEventBuilder toSseEvent() {
+            return SseEmitter.event()
+                    .id(id)
+                    .name(name)
+                    .data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ru.practicum.shareit.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.exception.ErrorResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+public class DatabaseConcurrencyGate extends OncePerRequestFilter implements Ordered {
+    private static final String ACTUATOR_PREFIX = "/actuator";
+    private static final Set<String> ASYNC_EXEMPT_PATHS = Set.of("/bookings/stream", "/bookings/owner/export");
+
+    private final Semaphore permits;
+    private final Duration waitTimeout;
+    private final ObjectMapper objectMapper;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public DatabaseConcurrencyGate(int permits, Duration waitTimeout, ObjectMapper objectMapper,
+                                   MeterRegistry registry) {
+        this.permits = new Semaphore(permits, true);
+        this.waitTimeout = waitTimeout;
+        this.objectMapper = objectMapper;
+        this.waitTimer = registry.timer("shareit.gate.wait");
+        this.rejected = registry.counter("shareit.gate.rejected");
+        Gauge.builder("shareit.gate.active", this.permits, semaphore -> permits - semaphore.availablePermits())
+                .register(registry);
+        Gauge.builder("shareit.gate.waiting", this.permits, Semaphore::getQueueLength)
+                .register(registry);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(ACTUATOR_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long started = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejected.increment();
+            reject(response, request);
+            return;
+        }
+        boolean deferred = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted() && !ASYNC_EXEMPT_PATHS.contains(request.getRequestURI())) {
+                request.getAsyncContext().addListener(new PermitRelease());
+                deferred = true;
+            }
+        } finally {
+            if (!deferred) {
+                permits.release();
+            }
+        }
+    }
+
+    private class PermitRelease implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpServletRequest request) throws IOException {
+        String message = "Сервер перегружен, повторите запрос позже";
+        log.warn("Запрос {} {} отклонён: нет свободных соединений за {}", request.getMethod(),
+                request.getRequestURI(), waitTimeout);
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message, ""));
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class DatabaseConcurrencyGateConfig {
+    @Bean
+    public DatabaseConcurrencyGate databaseConcurrencyGate(
+            ObjectMapper objectMapper,
+            MeterRegistry registry,
+            @Value("${shareit.concurrency-gate.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+            @Value("${shareit.concurrency-gate.wait-timeout:PT5S}") Duration waitTimeout) {
+        return new DatabaseConcurrencyGate(permits, waitTimeout, objectMapper, registry);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class ExportDataSource implements AutoCloseable {
+    private final HikariDataSource dataSource;
+    @Getter
+    private final JdbcTemplate jdbcTemplate;
+    @Getter
+    private final int poolSize;
+
+    public ExportDataSource(DataSourceProperties properties,
+                            @Value("${shareit.export.datasource.url:}") String url,
+                            @Value("${shareit.export.pool-size:2}") int poolSize,
+                            @Value("${shareit.export.fetch-size:1000}") int fetchSize,
+                            @Value("${shareit.export.query-timeout:30m}") Duration queryTimeout) {
+        this.dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url.isBlank() ? properties.determineUrl() : url.trim())
+                .build();
+        this.dataSource.setPoolName("export");
+        this.dataSource.setMaximumPoolSize(poolSize);
+        this.dataSource.setMinimumIdle(0);
+        this.dataSource.setReadOnly(true);
+        this.dataSource.setAutoCommit(false);
+        this.poolSize = poolSize;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.jdbcTemplate.setQueryTimeout((int) queryTimeout.toSeconds());
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final Pattern USER_PATH = Pattern.compile("^/users/(\\d+)$");
+
+    private final ReadYourWrites readYourWrites;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long userId = userId(request);
+        boolean write = !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+        if (userId != null && !write && readYourWrites.wroteRecently(userId)) {
+            ReadYourWrites.pin();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.unpin();
+            if (userId != null && write && response.getStatus() < 400) {
+                readYourWrites.recordWrite(userId);
+            }
+        }
+    }
+
+    private Long userId(HttpServletRequest request) {
+        String header = request.getHeader(X_SHARER_USER_ID);
+        if (header == null) {
+            Matcher path = USER_PATH.matcher(request.getRequestURI());
+            header = path.matches() ? path.group(1) : null;
+        }
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
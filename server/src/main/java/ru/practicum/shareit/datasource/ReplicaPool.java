@@ -0,0 +1,87 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Slf4j
+public class ReplicaPool implements AutoCloseable {
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    public ReplicaPool(List<HikariDataSource> dataSources, String lagQuery, Duration maxLag, MeterRegistry registry) {
+        this.replicas = dataSources.stream().map(Replica::new).toList();
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        Gauge.builder("shareit.datasource.replicas.healthy", this,
+                        pool -> pool.replicas.stream().filter(replica -> replica.healthy).count())
+                .register(registry);
+        check();
+    }
+
+    public Optional<String> next() {
+        List<Replica> healthy = replicas.stream().filter(replica -> replica.healthy).toList();
+        if (healthy.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(healthy.get(Math.floorMod(cursor.getAndIncrement(), healthy.size())).key());
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.datasource.replicas.health-check-interval:PT5S}")
+    public void check() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try {
+                Double lagSeconds = new JdbcTemplate(replica.dataSource).queryForObject(lagQuery, Double.class);
+                healthy = lagSeconds != null && Duration.ofMillis((long) (lagSeconds * 1000)).compareTo(maxLag) <= 0;
+                if (!healthy && replica.healthy) {
+                    log.warn("Реплика {} отстает на {} с, чтение переключено на другие узлы", replica.key(), lagSeconds);
+                }
+            } catch (DataAccessException e) {
+                healthy = false;
+                if (replica.healthy) {
+                    log.warn("Реплика {} недоступна: {}", replica.key(), e.getMessage());
+                }
+            }
+            if (healthy && !replica.healthy) {
+                log.info("Реплика {} снова принимает чтение", replica.key());
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    Map<Object, Object> targetDataSources() {
+        return replicas.stream().collect(Collectors.toMap(Replica::key, replica -> replica.dataSource));
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private String key() {
+            return dataSource.getPoolName();
+        }
+    }
+}
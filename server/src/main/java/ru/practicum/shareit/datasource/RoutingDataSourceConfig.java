@@ -0,0 +1,73 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+@Configuration
+@ConditionalOnProperty(name = "shareit.datasource.replicas.urls")
+public class RoutingDataSourceConfig {
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(DataSourceProperties properties,
+                                   MeterRegistry registry,
+                                   @Value("${shareit.datasource.replicas.urls}") List<String> urls,
+                                   @Value("${shareit.datasource.replicas.lag-query:"
+                                           + "SELECT COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)}")
+                                   String lagQuery,
+                                   @Value("${shareit.datasource.replicas.max-lag:5s}") Duration maxLag) {
+        List<HikariDataSource> replicas = IntStream.range(0, urls.size())
+                .mapToObj(i -> {
+                    HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                            .type(HikariDataSource.class)
+                            .url(urls.get(i).trim())
+                            .build();
+                    dataSource.setPoolName("replica-" + i);
+                    dataSource.setReadOnly(true);
+                    return dataSource;
+                })
+                .toList();
+        return new ReplicaPool(replicas, lagQuery, maxLag, registry);
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(@Value("${shareit.datasource.replicas.sticky-window:PT5S}") Duration window) {
+        return new ReadYourWrites(window);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWrites readYourWrites) {
+        return new ReadYourWritesFilter(readYourWrites);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPool replicaPool) {
+        Map<Object, Object> targets = new HashMap<>(replicaPool.targetDataSources());
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primaryDataSource);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaPool);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -1,7 +1,9 @@
 package ru.practicum.shareit.exception;
 
+import jakarta.persistence.OptimisticLockException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -10,6 +12,8 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 
 @Slf4j
 @RestControllerAdvice
@@ -28,6 +32,27 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage(), "");
     }
 
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    @ResponseStatus(CONFLICT)
+    public ErrorResponse handleOptimisticLock(final RuntimeException e) {
+        log.warn("Параллельное изменение данных {}", e.getMessage());
+        return new ErrorResponse("Данные были изменены другим запросом, повторите операцию", "");
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(PRECONDITION_FAILED)
+    public ErrorResponse handlePreconditionFailed(final PreconditionFailedException e) {
+        log.warn("Не выполнено условие запроса {}", e.getMessage());
+        return new ErrorResponse(e.getMessage(), "");
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(SERVICE_UNAVAILABLE)
+    public ErrorResponse handleServiceUnavailable(final ServiceUnavailableException e) {
+        log.warn("Сервис временно недоступен {}", e.getMessage());
+        return new ErrorResponse(e.getMessage(), "");
+    }
+
     @ExceptionHandler
     @ResponseStatus(BAD_REQUEST)
     public ErrorResponse handleBusinessException(final BusinessException e) {
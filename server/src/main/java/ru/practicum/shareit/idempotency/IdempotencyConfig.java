@@ -0,0 +1,24 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfig {
+    @Bean
+    public IdempotencyFilter idempotencyFilter(IdempotencyKeyRepository repository,
+                                               ObjectMapper objectMapper,
+                                               MeterRegistry registry,
+                                               @Value("${shareit.idempotency.ttl:24h}") Duration ttl,
+                                               @Value("${shareit.idempotency.lease:30s}") Duration lease,
+                                               @Value("${shareit.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                                               @Value("${shareit.idempotency.max-body-size:1MB}") DataSize maxBodySize) {
+        return new IdempotencyFilter(repository, objectMapper, registry, ttl, lease, waitTimeout, maxBodySize);
+    }
+}
@@ -0,0 +1,239 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.practicum.shareit.exception.ErrorResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String REPLAYED = "Idempotent-Replayed";
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final long maxBodySize;
+
+    public IdempotencyFilter(IdempotencyKeyRepository repository,
+                             ObjectMapper objectMapper,
+                             MeterRegistry registry,
+                             Duration ttl,
+                             Duration lease,
+                             Duration waitTimeout,
+                             DataSize maxBodySize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+        this.maxBodySize = Math.min(maxBodySize.toBytes(), Integer.MAX_VALUE - 1);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long userId = userId(request);
+        if (userId == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(IDEMPOTENCY_KEY).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, "Некорректный ключ идемпотентности");
+            return;
+        }
+        if (request.getContentLengthLong() > maxBodySize) {
+            rejectTooLarge(response);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes((int) maxBodySize + 1);
+        if (body.length > maxBodySize) {
+            rejectTooLarge(response);
+            return;
+        }
+        String path = request.getRequestURI();
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request, body);
+        String requestHash = requestHash(cachedRequest);
+        String localKey = userId + ":" + key;
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            if (repository.tryClaim(userId, key, path, requestHash, now, now.minus(lease), now.plus(ttl))) {
+                execute(cachedRequest, response, chain, userId, key, localKey);
+                return;
+            }
+            Optional<IdempotencyRecord> existing = repository.find(userId, key);
+            if (existing.isEmpty()) {
+                if (System.nanoTime() - deadline >= 0) {
+                    count("contended");
+                    reject(response, HttpStatus.CONFLICT, "Не удалось занять ключ идемпотентности, повторите запрос");
+                    return;
+                }
+                continue;
+            }
+            IdempotencyRecord record = existing.get();
+            if (!record.matches(path, requestHash)) {
+                count("mismatch");
+                reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Ключ идемпотентности уже использован для другого запроса");
+                return;
+            }
+            if (record.completed()) {
+                count("replayed");
+                replay(record, response);
+                return;
+            }
+            if (!awaitCompletion(localKey, deadline)) {
+                count("in_progress");
+                reject(response, HttpStatus.CONFLICT, "Запрос с этим ключом идемпотентности еще выполняется");
+                return;
+            }
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                         long userId, String key, String localKey) throws ServletException, IOException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        inFlight.put(localKey, done);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(request, wrapper);
+            if (HttpStatus.valueOf(wrapper.getStatus()).is2xxSuccessful()) {
+                repository.complete(userId, key, wrapper.getStatus(), wrapper.getContentType(),
+                        wrapper.getHeader(HttpHeaders.ETAG), wrapper.getContentAsByteArray());
+                stored = true;
+            }
+            count("executed");
+        } finally {
+            if (!stored) {
+                repository.release(userId, key);
+            }
+            inFlight.remove(localKey, done);
+            done.complete(null);
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean awaitCompletion(String localKey, long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return false;
+        }
+        CompletableFuture<Void> local = inFlight.get(localKey);
+        try {
+            if (local != null) {
+                local.get(remaining, TimeUnit.NANOSECONDS);
+            } else {
+                Thread.sleep(Math.min(POLL_INTERVAL_MILLIS, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+            }
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String requestHash(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "?"
+                    + Objects.toString(request.getQueryString(), "") + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(request.getBody());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.status());
+        if (record.contentType() != null) {
+            response.setContentType(record.contentType());
+        }
+        if (record.etag() != null) {
+            response.setHeader(HttpHeaders.ETAG, record.etag());
+        }
+        response.setHeader(REPLAYED, "true");
+        if (record.body() != null) {
+            response.setContentLength(record.body().length);
+            response.getOutputStream().write(record.body());
+        }
+    }
+
+    private void rejectTooLarge(HttpServletResponse response) throws IOException {
+        count("too_large");
+        reject(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                "Тело запроса с ключом идемпотентности больше " + maxBodySize + " байт");
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        log.warn("{}", message);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message, ""));
+    }
+
+    private void count(String outcome) {
+        registry.counter("shareit.idempotency.requests", "outcome", outcome).increment();
+    }
+
+    private Long userId(HttpServletRequest request) {
+        String header = request.getHeader(X_SHARER_USER_ID);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
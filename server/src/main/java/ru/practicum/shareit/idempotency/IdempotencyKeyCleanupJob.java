@@ -0,0 +1,23 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeyCleanupJob {
+    private final IdempotencyKeyRepository repository;
+
+    @Scheduled(fixedDelayString = "${shareit.idempotency.purge-interval:PT10M}")
+    public void purge() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Удалено {} просроченных ключей идемпотентности", deleted);
+        }
+    }
+}
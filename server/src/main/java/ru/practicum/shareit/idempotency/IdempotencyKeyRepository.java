@@ -0,0 +1,65 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+    private static final RowMapper<IdempotencyRecord> ROW_MAPPER = (rs, rowNum) -> new IdempotencyRecord(
+            rs.getString("request_path"),
+            rs.getString("request_hash"),
+            rs.getObject("status", Integer.class),
+            rs.getString("content_type"),
+            rs.getString("etag"),
+            rs.getBytes("body"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean tryClaim(long userId, String key, String requestPath, String requestHash,
+                            LocalDateTime now, LocalDateTime staleBefore, LocalDateTime expiresAt) {
+        jdbcTemplate.update("""
+                DELETE FROM idempotency_keys
+                WHERE user_id = ? AND idem_key = ?
+                  AND (expires_at < ? OR (status IS NULL AND created_at < ?))
+                """, userId, key, now, staleBefore);
+        try {
+            jdbcTemplate.update("""
+                    INSERT INTO idempotency_keys (user_id, idem_key, request_path, request_hash, created_at, expires_at)
+                    VALUES (?, ?, ?, ?, ?, ?)
+                    """, userId, key, requestPath, requestHash, now, expiresAt);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public Optional<IdempotencyRecord> find(long userId, String key) {
+        return jdbcTemplate.query("""
+                SELECT request_path, request_hash, status, content_type, etag, body FROM idempotency_keys
+                WHERE user_id = ? AND idem_key = ?
+                """, ROW_MAPPER, userId, key).stream().findFirst();
+    }
+
+    public void complete(long userId, String key, int status, String contentType, String etag, byte[] body) {
+        jdbcTemplate.update("""
+                UPDATE idempotency_keys SET status = ?, content_type = ?, etag = ?, body = ?
+                WHERE user_id = ? AND idem_key = ?
+                """, status, contentType, etag, body, userId, key);
+    }
+
+    public void release(long userId, String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE user_id = ? AND idem_key = ? AND status IS NULL",
+                userId, key);
+    }
+
+    public int deleteExpired(LocalDateTime now) {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < ?", now);
+    }
+}
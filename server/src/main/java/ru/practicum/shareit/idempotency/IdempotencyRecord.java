@@ -0,0 +1,12 @@
+package ru.practicum.shareit.idempotency;
+
+public record IdempotencyRecord(String requestPath, String requestHash, Integer status, String contentType,
+                                String etag, byte[] body) {
+    public boolean completed() {
+        return status != null;
+    }
+
+    public boolean matches(String path, String hash) {
+        return requestPath.equals(path) && (requestHash == null || requestHash.equals(hash));
+    }
+}
@@ -3,6 +3,8 @@ package ru.practicum.shareit.item;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -13,10 +15,13 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.services.ItemService;
+import ru.practicum.shareit.streaming.JsonArrayResponses;
+import ru.practicum.shareit.version.ETags;
 
 import java.util.Collection;
 
@@ -26,12 +31,14 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService service;
+    private final JsonArrayResponses jsonArrayResponses;
     private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
 
     @GetMapping("/{id}")
-    public ItemDto get(@PathVariable long id, @RequestHeader(X_SHARER_USER_ID) long userId) {
+    public ResponseEntity<ItemDto> get(@PathVariable long id, @RequestHeader(X_SHARER_USER_ID) long userId) {
         log.info("Получение предмета по id: {}", id);
-        return service.findById(id, userId);
+        ItemDto item = service.findById(id, userId);
+        return ETags.withVersion(item, item.getVersion());
     }
 
     @GetMapping
@@ -40,6 +47,12 @@ public class ItemController {
         return service.findByOwner(userId);
     }
 
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamByOwnerId(@RequestHeader(X_SHARER_USER_ID) long userId) {
+        log.info("Потоково выгружаем предметы владельца: {}", userId);
+        return jsonArrayResponses.of(service.streamByOwner(userId));
+    }
+
     @GetMapping("/search")
     public Collection<ItemDto> getItemBySearch(@RequestParam String text) {
         log.info("Получение предметов по строке поиска: {}", text);
@@ -47,15 +60,21 @@ public class ItemController {
     }
 
     @PostMapping
-    public ItemDto create(@RequestHeader(X_SHARER_USER_ID) long userId, @RequestBody @Valid ItemDto itemDto) {
+    public ResponseEntity<ItemDto> create(@RequestHeader(X_SHARER_USER_ID) long userId,
+                                          @RequestBody @Valid ItemDto itemDto) {
         log.info("Создается предмет {} с владельцем {}", itemDto, userId);
-        return service.addNewItem(itemDto, userId);
+        ItemDto item = service.addNewItem(itemDto, userId);
+        return ETags.withVersion(item, item.getVersion());
     }
 
     @PatchMapping("/{itemId}")
-    public ItemDto update(@RequestHeader(X_SHARER_USER_ID) long userId, @PathVariable long itemId, @RequestBody ItemDto itemDto) {
+    public ResponseEntity<ItemDto> update(@RequestHeader(X_SHARER_USER_ID) long userId,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @PathVariable long itemId,
+                                          @RequestBody ItemDto itemDto) {
         log.info("Обновление предмета {} с владельцем {}", itemDto, userId);
-        return service.updateItem(itemId, itemDto, userId);
+        ItemDto item = service.updateItem(itemId, itemDto, userId, ETags.expectedVersion(ifMatch));
+        return ETags.withVersion(item, item.getVersion());
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,4 @@
+package ru.practicum.shareit.item.dto;
+
+public record ItemRow(Long id, String name, String description, Boolean available, Long requestId, Long version) {
+}
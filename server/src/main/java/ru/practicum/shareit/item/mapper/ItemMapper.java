@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.mapper;
 
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemRow;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 
@@ -24,6 +25,18 @@ public class ItemMapper {
                 .description(item.getDescription())
                 .available(item.getAvailable())
                 .requestId(item.getRequest() == null ? null : item.getRequest().getId())
+                .version(item.getVersion())
+                .build();
+    }
+
+    public ItemDto toItemDto(ItemRow row) {
+        return ItemDto.builder()
+                .id(row.id())
+                .name(row.name())
+                .description(row.description())
+                .available(row.available())
+                .requestId(row.requestId())
+                .version(row.version())
                 .build();
     }
 }
@@ -1,11 +1,23 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface CommentRepository  extends JpaRepository<Comment, Long> {
+public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByItem(Item item);
+
+    @Query("""
+        SELECT new ru.practicum.shareit.item.dto.CommentDto(c.id, c.item.id, c.text, c.author.name, c.created)
+        FROM Comment c
+        WHERE c.item.id IN :itemIds
+        ORDER BY c.id
+        """)
+    List<CommentDto> findDtosByItemIds(@Param("itemIds") Collection<Long> itemIds);
 }
\ No newline at end of file
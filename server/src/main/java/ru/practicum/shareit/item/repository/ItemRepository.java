@@ -1,17 +1,42 @@
 package ru.practicum.shareit.item.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemRow;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.RequestedItemRow;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
-    Collection<Item> findByOwnerId(Long ownerId);
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemWriteRepository {
+    String SELECT_OWNER_ROWS = """
+        SELECT new ru.practicum.shareit.item.dto.ItemRow(i.id, i.name, i.description, i.available, i.request.id, i.version)
+        FROM Item i
+        WHERE i.owner.id = :ownerId
+        ORDER BY i.id
+        """;
+
+    @Query(SELECT_OWNER_ROWS)
+    List<ItemRow> findRowsByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query(SELECT_OWNER_ROWS)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ItemRow> streamRowsByOwnerId(@Param("ownerId") Long ownerId);
+
+    boolean existsByIdAndOwnerId(Long id, Long ownerId);
 
     @Query("""
-    SELECT i FROM Item i\s
+    SELECT new ru.practicum.shareit.item.dto.ItemRow(i.id, i.name, i.description, i.available, i.request.id, i.version)\s
+    FROM Item i\s
     WHERE\s
         (:text IS NOT NULL AND TRIM(:text) != '')\s
         AND i.available = TRUE\s
@@ -20,9 +45,12 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             OR LOWER(i.description) LIKE LOWER(CONCAT('%', TRIM(:text), '%'))\s
         )\s
     """)
-    Collection<Item> findByNameOrDescription(@Param("text") String text);
+    Collection<ItemRow> findByNameOrDescription(@Param("text") String text);
 
-    Collection<Item> findAllByRequestId(Long id);
-
-    Collection<Item> findAllByRequestIdIn(Collection<Long> ids);
+    @Query("""
+        SELECT new ru.practicum.shareit.request.dto.RequestedItemRow(i.request.id, i.id, i.name, i.owner.id)
+        FROM Item i
+        WHERE i.request.id IN :requestIds
+        """)
+    Collection<RequestedItemRow> findRequestedItems(@Param("requestIds") Collection<Long> requestIds);
 }
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.dto.ItemRow;
+
+import java.util.Optional;
+
+public interface ItemWriteRepository {
+    Optional<ItemRow> updateOwned(long itemId, long ownerId, Long expectedVersion,
+                                  String name, String description, Boolean available);
+}
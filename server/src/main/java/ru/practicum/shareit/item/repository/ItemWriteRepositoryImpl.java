@@ -0,0 +1,70 @@
+package ru.practicum.shareit.item.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.shareit.item.dto.ItemRow;
+import ru.practicum.shareit.jdbc.ReturningUpdates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class ItemWriteRepositoryImpl implements ItemWriteRepository {
+    private static final String COLUMNS = "id, name, description, is_available, request_id, version";
+    private static final String WHERE_OWNED = " WHERE id = :itemId AND owner_id = :ownerId";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM items" + WHERE_OWNED;
+    private static final String VERSION_MATCHES = " AND version = :version";
+    private static final RowMapper<ItemRow> ROW_MAPPER = (rs, rowNum) -> new ItemRow(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getBoolean("is_available"),
+            rs.getObject("request_id", Long.class),
+            rs.getLong("version"));
+
+    private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ReturningUpdates returningUpdates;
+
+    @Override
+    public Optional<ItemRow> updateOwned(long itemId, long ownerId, Long expectedVersion,
+                                         String name, String description, Boolean available) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("itemId", itemId)
+                .addValue("ownerId", ownerId);
+        String versionCondition = "";
+        if (expectedVersion != null) {
+            versionCondition = VERSION_MATCHES;
+            parameters.addValue("version", expectedVersion);
+        }
+        List<String> assignments = new ArrayList<>();
+        if (name != null) {
+            assignments.add("name = :name");
+            parameters.addValue("name", name);
+        }
+        if (description != null) {
+            assignments.add("description = :description");
+            parameters.addValue("description", description);
+        }
+        if (available != null) {
+            assignments.add("is_available = :available");
+            parameters.addValue("available", available);
+        }
+
+        entityManager.flush();
+        List<ItemRow> rows;
+        if (assignments.isEmpty()) {
+            rows = jdbcTemplate.query(SELECT + versionCondition, parameters, ROW_MAPPER);
+        } else {
+            assignments.add("version = version + 1");
+            rows = returningUpdates.update("UPDATE items SET " + String.join(", ", assignments)
+                    + WHERE_OWNED + versionCondition, COLUMNS, SELECT, parameters, ROW_MAPPER);
+        }
+        entityManager.clear();
+        return rows.stream().findFirst();
+    }
+}
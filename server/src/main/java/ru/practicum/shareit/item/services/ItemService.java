@@ -4,6 +4,7 @@ import org.springframework.stereotype.Service;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.streaming.RowSource;
 
 import java.util.Collection;
 
@@ -11,7 +12,7 @@ import java.util.Collection;
 public interface ItemService {
     ItemDto addNewItem(ItemDto item, long ownerId);
 
-    ItemDto updateItem(long id, ItemDto item, long userId);
+    ItemDto updateItem(long id, ItemDto item, long userId, Long expectedVersion);
 
     void delete(long id);
 
@@ -19,6 +20,8 @@ public interface ItemService {
 
     Collection<ItemDto> findByOwner(long ownerId);
 
+    RowSource<ItemDto> streamByOwner(long ownerId);
+
     Collection<ItemDto> findBySearch(String text);
 
     CommentDto createComment(long itemId, long userId, CommentRequestDto commentDto);
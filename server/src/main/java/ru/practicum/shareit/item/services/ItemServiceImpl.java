@@ -5,42 +5,62 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.exception.BookingNotFoundException;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingViewRepository;
 import ru.practicum.shareit.exception.BusinessException;
 import ru.practicum.shareit.exception.DataConflictException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemRow;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.outbox.OutboxPublisher;
 import ru.practicum.shareit.request.exception.ItemRequestNotFoundException;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.streaming.RowSource;
+import ru.practicum.shareit.streaming.RowSources;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static ru.practicum.shareit.outbox.OutboxEventType.COMMENT_CREATED;
+import static ru.practicum.shareit.outbox.OutboxEventType.ITEM_CREATED;
+import static ru.practicum.shareit.outbox.OutboxEventType.ITEM_DELETED;
+import static ru.practicum.shareit.outbox.OutboxEventType.ITEM_UPDATED;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int OWNER_ITEMS_CHUNK = 100;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
+    private final BookingViewRepository bookingViewRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final OutboxPublisher outboxPublisher;
+    private final RowSources rowSources;
 
     @Override
     @Transactional
@@ -51,33 +71,41 @@ public class ItemServiceImpl implements ItemService {
             saved.setRequest(itemRequestRepository.findById(item.getRequestId())
                     .orElseThrow(() -> new ItemRequestNotFoundException(item.getRequestId())));
         }
-        return ItemMapper.toItemDto(itemRepository.save(saved));
+        ItemDto created = ItemMapper.toItemDto(itemRepository.save(saved));
+        outboxPublisher.publish(ITEM_CREATED, created.getId(), created);
+        return created;
     }
 
     @Override
     @Transactional
-    public ItemDto updateItem(long itemId, ItemDto update, long ownerId) {
-        User owner = getUser(ownerId);
-        Item item = getItem(itemId);
-        if (!item.getOwner().equals(owner)) {
-            throw new DataConflictException("Некорректный владелец предмета");
-        }
-        if (update.getName() != null) {
-            item.setName(update.getName());
+    public ItemDto updateItem(long itemId, ItemDto update, long ownerId, Long expectedVersion) {
+        ItemRow saved = itemRepository.updateOwned(itemId, ownerId, expectedVersion,
+                        update.getName(), update.getDescription(), update.getAvailable())
+                .orElseThrow(() -> updateRejection(itemId, ownerId));
+        bookingViewRepository.updateItem(saved.id(), saved.name(), saved.description(), saved.available());
+        ItemDto updated = ItemMapper.toItemDto(saved);
+        outboxPublisher.publish(ITEM_UPDATED, updated.getId(), updated);
+        return updated;
+    }
+
+    private RuntimeException updateRejection(long itemId, long ownerId) {
+        if (!userRepository.existsById(ownerId)) {
+            return new UserNotFoundException(ownerId);
         }
-        if (update.getDescription() != null) {
-            item.setDescription(update.getDescription());
+        if (!itemRepository.existsById(itemId)) {
+            return new ItemNotFoundException(itemId);
         }
-        if (update.getAvailable() != null) {
-            item.setAvailable(update.getAvailable());
+        if (!itemRepository.existsByIdAndOwnerId(itemId, ownerId)) {
+            return new DataConflictException("Некорректный владелец предмета");
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        return new PreconditionFailedException("Предмет " + itemId + " был изменен другим запросом");
     }
 
     @Override
     @Transactional
     public void delete(long itemId) {
         itemRepository.deleteById(itemId);
+        outboxPublisher.publish(ITEM_DELETED, itemId, Map.of("id", itemId));
     }
 
     @Override
@@ -99,18 +127,43 @@ public class ItemServiceImpl implements ItemService {
     @Transactional(readOnly = true)
     public Collection<ItemDto> findByOwner(long ownerId) {
         getUser(ownerId);
-        userRepository.findById(ownerId);
-        Collection<ItemDto> itemsDto = itemRepository.findByOwnerId(ownerId)
-                .stream()
-                .map(ItemMapper::toItemDto)
-                .toList();
-        for (ItemDto itemDto : itemsDto) {
-            setLastAndNextBookings(itemDto);
-            List<CommentDto> comments = commentRepository.findByItem(getItem(itemDto.getId())).stream()
-                    .map(CommentMapper::toCommentDto).toList();
-            itemDto.setComments(comments);
+        List<ItemRow> rows = itemRepository.findRowsByOwnerId(ownerId);
+        List<ItemDto> items = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += OWNER_ITEMS_CHUNK) {
+            items.addAll(toOwnerItems(rows.subList(from, Math.min(from + OWNER_ITEMS_CHUNK, rows.size()))));
         }
-        return itemsDto;
+        return items;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RowSource<ItemDto> streamByOwner(long ownerId) {
+        getUser(ownerId);
+        return rowSources.chunked(() -> itemRepository.streamRowsByOwnerId(ownerId), OWNER_ITEMS_CHUNK,
+                this::toOwnerItems);
+    }
+
+    private List<ItemDto> toOwnerItems(List<ItemRow> rows) {
+        List<Long> itemIds = rows.stream().map(ItemRow::id).toList();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, BookingDto> last = byItemId(bookingRepository.findLastBookings(itemIds, now));
+        Map<Long, BookingDto> next = byItemId(bookingRepository.findNextBookings(itemIds, now));
+        Map<Long, List<CommentDto>> comments = commentRepository.findDtosByItemIds(itemIds).stream()
+                .collect(Collectors.groupingBy(CommentDto::getItemId));
+        return rows.stream()
+                .map(row -> {
+                    ItemDto itemDto = ItemMapper.toItemDto(row);
+                    itemDto.setLastBooking(last.get(row.id()));
+                    itemDto.setNextBooking(next.get(row.id()));
+                    itemDto.setComments(comments.getOrDefault(row.id(), List.of()));
+                    return itemDto;
+                })
+                .toList();
+    }
+
+    private Map<Long, BookingDto> byItemId(List<BookingDto> bookings) {
+        return bookings.stream()
+                .collect(Collectors.toMap(BookingDto::getItemId, Function.identity(), (first, second) -> first));
     }
 
     @Override
@@ -133,7 +186,9 @@ public class ItemServiceImpl implements ItemService {
             throw new BusinessException("Бронирование еще активно");
         }
 
-        return CommentMapper.toCommentDto(commentRepository.save(CommentMapper.toComment(commentDto, item, user)));
+        CommentDto comment = CommentMapper.toCommentDto(commentRepository.save(CommentMapper.toComment(commentDto, item, user)));
+        outboxPublisher.publish(COMMENT_CREATED, itemId, comment);
+        return comment;
     }
 
     private void setLastAndNextBookings(ItemDto itemDto) {
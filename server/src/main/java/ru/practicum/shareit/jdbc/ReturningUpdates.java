@@ -0,0 +1,46 @@
+package ru.practicum.shareit.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class ReturningUpdates {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private volatile String databaseProduct;
+
+    public <T> List<T> update(String updateSql, String returnedColumns, String selectSql,
+                              SqlParameterSource parameters, RowMapper<T> rowMapper) {
+        return switch (databaseProduct()) {
+            case "PostgreSQL" -> jdbcTemplate.query(updateSql + " RETURNING " + returnedColumns, parameters, rowMapper);
+            case "H2" -> jdbcTemplate.query("SELECT " + returnedColumns + " FROM FINAL TABLE (" + updateSql + ")",
+                    parameters, rowMapper);
+            default -> jdbcTemplate.update(updateSql, parameters) == 0
+                    ? List.of()
+                    : jdbcTemplate.query(selectSql, parameters, rowMapper);
+        };
+    }
+
+    private String databaseProduct() {
+        String product = databaseProduct;
+        if (product == null) {
+            try {
+                product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            } catch (MetaDataAccessException e) {
+                product = "";
+            }
+            databaseProduct = product;
+        }
+        return product;
+    }
+}
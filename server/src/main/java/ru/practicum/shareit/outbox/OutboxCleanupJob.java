@@ -0,0 +1,30 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+public class OutboxCleanupJob {
+    private final OutboxEventRepository repository;
+    private final Duration retention;
+
+    public OutboxCleanupJob(OutboxEventRepository repository,
+                            @Value("${shareit.outbox.retention:P7D}") Duration retention) {
+        this.repository = repository;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.purge-interval:PT10M}")
+    public void purge() {
+        int deleted = repository.deletePublishedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Удалено {} опубликованных событий outbox старше {}", deleted, retention);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+import static jakarta.persistence.GenerationType.IDENTITY;
+
+@Entity
+@Builder
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "outbox_events", schema = "public")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = IDENTITY)
+    private Long id;
+    @Column(name = "aggregate_type", length = 64)
+    private String aggregateType;
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", length = 64)
+    private OutboxEventType eventType;
+    @Column(name = "payload")
+    private String payload;
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+    @Column(name = "attempts")
+    private int attempts;
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+    @Column(name = "dead_at")
+    private LocalDateTime deadAt;
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
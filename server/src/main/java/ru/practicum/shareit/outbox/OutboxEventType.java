@@ -0,0 +1,19 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum OutboxEventType {
+    BOOKING_CREATED("booking"),
+    BOOKING_APPROVED("booking"),
+    BOOKING_REJECTED("booking"),
+    BOOKING_CANCELED("booking"),
+    ITEM_CREATED("item"),
+    ITEM_UPDATED("item"),
+    ITEM_DELETED("item"),
+    COMMENT_CREATED("item");
+
+    private final String aggregateType;
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class OutboxRelay {
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxSubscriber> subscribers;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration claimLease;
+    private final Counter relayed;
+    private final Counter failed;
+    private final Counter dead;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       List<OutboxSubscriber> subscribers,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry registry,
+                       @Value("${shareit.outbox.batch-size:100}") int batchSize,
+                       @Value("${shareit.outbox.max-attempts:5}") int maxAttempts,
+                       @Value("${shareit.outbox.claim-lease:PT1M}") Duration claimLease) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.subscribers = subscribers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.claimLease = claimLease;
+        this.relayed = registry.counter("shareit.outbox.relayed");
+        this.failed = registry.counter("shareit.outbox.failed");
+        this.dead = registry.counter("shareit.outbox.dead");
+        TimeGauge.builder("shareit.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.poll-interval:PT0.5S}")
+    public void relay() {
+        int processed;
+        do {
+            processed = relayBatch();
+        } while (processed == batchSize);
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        lagMillis.set(Duration.between(batch.getFirst().getCreatedAt(), now).toMillis());
+
+        List<Long> delivered = new ArrayList<>();
+        int processed = 0;
+        for (OutboxEvent event : batch) {
+            try {
+                subscribers.forEach(subscriber -> subscriber.onEvent(event));
+            } catch (RuntimeException e) {
+                failed.increment();
+                if (event.getAttempts() + 1 < maxAttempts) {
+                    log.warn("Не удалось доставить событие {}, повторим при следующем опросе", event, e);
+                    outboxEventRepository.recordFailure(event.getId(), errorOf(e), null);
+                    releaseRest(batch, processed + 1);
+                    break;
+                }
+                log.error("Событие {} не доставлено за {} попыток и отложено", event, maxAttempts, e);
+                outboxEventRepository.recordFailure(event.getId(), errorOf(e), now);
+                dead.increment();
+                processed++;
+                continue;
+            }
+            delivered.add(event.getId());
+            processed++;
+        }
+        if (!delivered.isEmpty()) {
+            outboxEventRepository.markPublished(delivered, LocalDateTime.now());
+            relayed.increment(delivered.size());
+        }
+        return processed;
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findUnpublished(PageRequest.of(0, batchSize));
+        LocalDateTime now = LocalDateTime.now();
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return batch;
+        }
+        if (batch.stream().anyMatch(event -> event.getClaimedUntil() != null && event.getClaimedUntil().isAfter(now))) {
+            log.debug("Очередь событий обрабатывается другим экземпляром");
+            return List.of();
+        }
+        outboxEventRepository.claim(batch.stream().map(OutboxEvent::getId).toList(), now.plus(claimLease));
+        return batch;
+    }
+
+    private void releaseRest(List<OutboxEvent> batch, int from) {
+        if (from < batch.size()) {
+            outboxEventRepository.claim(batch.subList(from, batch.size()).stream().map(OutboxEvent::getId).toList(),
+                    null);
+        }
+    }
+
+    private String errorOf(RuntimeException e) {
+        String error = e.getClass().getName() + ": " + e.getMessage();
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
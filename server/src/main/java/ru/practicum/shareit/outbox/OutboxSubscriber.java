@@ -0,0 +1,5 @@
+package ru.practicum.shareit.outbox;
+
+public interface OutboxSubscriber {
+    void onEvent(OutboxEvent event);
+}
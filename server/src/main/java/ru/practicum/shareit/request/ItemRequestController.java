@@ -2,16 +2,21 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.request.dto.ItemRequestDetailedDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeed;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.streaming.JsonArrayResponses;
 
 import java.util.Collection;
 
@@ -21,7 +26,9 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class ItemRequestController {
     static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    static final String X_NEXT_CURSOR = "X-Next-Cursor";
     private final ItemRequestService itemRequestService;
+    private final JsonArrayResponses jsonArrayResponses;
 
     @PostMapping
     public ItemRequestDetailedDto create(@RequestHeader(X_SHARER_USER_ID) Long userId,
@@ -37,10 +44,24 @@ public class ItemRequestController {
         return itemRequestService.getUserRequests(userId);
     }
 
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamUserRequests(@RequestHeader(X_SHARER_USER_ID) Long userId) {
+        log.info("Потоково выгружаем запросы пользователя с id {}", userId);
+        return jsonArrayResponses.of(itemRequestService.streamUserRequests(userId));
+    }
+
     @GetMapping("/all")
-    public Collection<ItemRequestDetailedDto> getOtherUsersRequests(@RequestHeader(X_SHARER_USER_ID) Long userId) {
+    public ResponseEntity<Collection<ItemRequestDetailedDto>> getOtherUsersRequests(
+            @RequestHeader(X_SHARER_USER_ID) Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         log.info("Получаем список запросов других пользователей для пользователя с id {}", userId);
-        return itemRequestService.getOtherUsersRequests(userId);
+        ItemRequestFeed feed = itemRequestService.getOtherUsersRequests(userId, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (feed.getNextCursor() != null) {
+            response.header(X_NEXT_CURSOR, feed.getNextCursor());
+        }
+        return response.body(feed.getRequests());
     }
 
     @GetMapping("/{requestId}")
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.request.dto;
+
+import java.time.LocalDateTime;
+
+public record ItemRequestRow(Long id,
+                             String description,
+                             Long requesterId,
+                             String requesterName,
+                             String requesterEmail,
+                             LocalDateTime created) {
+}
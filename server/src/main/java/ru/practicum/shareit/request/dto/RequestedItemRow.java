@@ -0,0 +1,4 @@
+package ru.practicum.shareit.request.dto;
+
+public record RequestedItemRow(Long requestId, Long id, String name, Long ownerId) {
+}
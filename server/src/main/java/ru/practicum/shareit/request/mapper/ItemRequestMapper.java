@@ -4,7 +4,10 @@ import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDetailedDto;
+import ru.practicum.shareit.request.dto.ItemRequestRow;
 import ru.practicum.shareit.request.dto.RequestedItemDto;
+import ru.practicum.shareit.request.dto.RequestedItemRow;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 import java.util.Collection;
@@ -29,12 +32,26 @@ public class ItemRequestMapper {
         );
     }
 
+    public static ItemRequestDetailedDto toItemRequestDetailedDto(ItemRequestRow row) {
+        return new ItemRequestDetailedDto(
+                row.id(),
+                row.description(),
+                new UserDto(row.requesterId(), row.requesterName(), row.requesterEmail(), null),
+                row.created(),
+                List.of()
+        );
+    }
+
     public static RequestedItemDto toRequestedItemDto(Item item) {
         return new RequestedItemDto(item.getId(), item.getName(), item.getOwner().getId());
     }
 
-    public static List<RequestedItemDto> toRequestedItemsDto(Collection<Item> items) {
-        return items.stream()
+    public static RequestedItemDto toRequestedItemDto(RequestedItemRow row) {
+        return new RequestedItemDto(row.id(), row.name(), row.ownerId());
+    }
+
+    public static List<RequestedItemDto> toRequestedItemsDto(Collection<RequestedItemRow> rows) {
+        return rows.stream()
                 .map(ItemRequestMapper::toRequestedItemDto)
                 .toList();
     }
@@ -1,12 +1,60 @@
 package ru.practicum.shareit.request.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.dto.ItemRequestRow;
 import ru.practicum.shareit.request.model.ItemRequest;
 
-import java.util.Collection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    Collection<ItemRequest> findAllByRequesterId(Long id);
+    String SELECT_ROWS = """
+        SELECT new ru.practicum.shareit.request.dto.ItemRequestRow(
+            r.id, r.description, u.id, u.name, u.email, r.created)
+        FROM ItemRequest r
+        JOIN r.requester u
+        """;
 
-    Collection<ItemRequest> findAllByRequesterIdNotIn(Collection<Long> ids);
+    @EntityGraph(attributePaths = "requester")
+    Optional<ItemRequest> findWithRequesterById(Long id);
+
+    @Query(SELECT_ROWS + """
+        WHERE u.id = :userId
+        """)
+    List<ItemRequestRow> findRowsByRequesterId(@Param("userId") Long userId);
+
+    @Query(SELECT_ROWS + """
+        WHERE u.id = :userId
+        ORDER BY r.created DESC, r.id DESC
+        """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ItemRequestRow> streamRowsByRequesterId(@Param("userId") Long userId);
+
+    @Query(SELECT_ROWS + """
+        WHERE u.id <> :userId
+        ORDER BY r.created DESC, r.id DESC
+        """)
+    List<ItemRequestRow> findFeed(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(SELECT_ROWS + """
+        WHERE u.id <> :userId
+          AND (r.created < :created OR (r.created = :created AND r.id < :id))
+        ORDER BY r.created DESC, r.id DESC
+        """)
+    List<ItemRequestRow> findFeedAfter(@Param("userId") Long userId,
+                                       @Param("created") LocalDateTime created,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
 }
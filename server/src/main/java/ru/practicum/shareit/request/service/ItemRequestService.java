@@ -3,6 +3,8 @@ package ru.practicum.shareit.request.service;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.request.dto.ItemRequestDetailedDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeed;
+import ru.practicum.shareit.streaming.RowSource;
 
 import java.util.Collection;
 
@@ -10,9 +12,11 @@ import java.util.Collection;
 public interface ItemRequestService {
     Collection<ItemRequestDetailedDto> getUserRequests(Long userId);
 
+    RowSource<ItemRequestDetailedDto> streamUserRequests(Long userId);
+
     ItemRequestDetailedDto create(ItemRequestDto request);
 
     ItemRequestDetailedDto getRequest(Long itemRequestId);
 
-    Collection<ItemRequestDetailedDto> getOtherUsersRequests(Long userId);
+    ItemRequestFeed getOtherUsersRequests(Long userId, String cursor, int size);
 }
\ No newline at end of file
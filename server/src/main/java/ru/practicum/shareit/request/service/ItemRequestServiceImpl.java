@@ -2,14 +2,20 @@ package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDetailedDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeed;
+import ru.practicum.shareit.request.dto.ItemRequestFeedCursor;
+import ru.practicum.shareit.request.dto.ItemRequestRow;
+import ru.practicum.shareit.request.dto.RequestedItemRow;
 import ru.practicum.shareit.request.exception.ItemRequestNotFoundException;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.streaming.RowSource;
+import ru.practicum.shareit.streaming.RowSources;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.repository.UserRepository;
@@ -18,7 +24,6 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import static ru.practicum.shareit.request.mapper.ItemRequestMapper.toItemRequestDetailedDto;
@@ -28,18 +33,44 @@ import static ru.practicum.shareit.request.mapper.ItemRequestMapper.toRequestedI
 @Service
 @RequiredArgsConstructor
 public class ItemRequestServiceImpl implements ItemRequestService {
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    private static final int STREAM_CHUNK = 100;
+
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final RowSources rowSources;
 
     @Override
     public Collection<ItemRequestDetailedDto> getUserRequests(Long userId) {
-        return formatRequests(itemRequestRepository.findAllByRequesterId(userId));
+        return formatRequests(itemRequestRepository.findRowsByRequesterId(userId));
     }
 
     @Override
-    public Collection<ItemRequestDetailedDto> getOtherUsersRequests(Long userId) {
-        return formatRequests(itemRequestRepository.findAllByRequesterIdNotIn(Set.of(userId)));
+    public RowSource<ItemRequestDetailedDto> streamUserRequests(Long userId) {
+        return rowSources.chunked(() -> itemRequestRepository.streamRowsByRequesterId(userId), STREAM_CHUNK,
+                chunk -> List.copyOf(formatRequests(chunk)));
+    }
+
+    @Override
+    public ItemRequestFeed getOtherUsersRequests(Long userId, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_FEED_PAGE_SIZE);
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<ItemRequestRow> requests;
+        if (cursor == null || cursor.isBlank()) {
+            requests = itemRequestRepository.findFeed(userId, page);
+        } else {
+            ItemRequestFeedCursor after = ItemRequestFeedCursor.decode(cursor);
+            requests = itemRequestRepository.findFeedAfter(userId, after.created(), after.id(), page);
+        }
+
+        String nextCursor = null;
+        if (requests.size() > pageSize) {
+            requests = requests.subList(0, pageSize);
+            ItemRequestRow last = requests.getLast();
+            nextCursor = new ItemRequestFeedCursor(last.created(), last.id()).encode();
+        }
+        return new ItemRequestFeed(List.copyOf(formatRequests(requests)), nextCursor);
     }
 
     @Override
@@ -59,23 +90,23 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public ItemRequestDetailedDto getRequest(Long itemRequestId) {
-        ItemRequest itemRequest = itemRequestRepository.findById(itemRequestId)
+        ItemRequest itemRequest = itemRequestRepository.findWithRequesterById(itemRequestId)
                 .orElseThrow(() -> new ItemRequestNotFoundException(itemRequestId));
 
-        Collection<Item> items = itemRepository.findAllByRequestId(itemRequest.getId());
+        Collection<RequestedItemRow> items = itemRepository.findRequestedItems(List.of(itemRequest.getId()));
         return toItemRequestDetailedDto(itemRequest).withItems(toRequestedItemsDto(items));
     }
 
-    private Collection<ItemRequestDetailedDto> formatRequests(Collection<ItemRequest> itemRequests) {
-        Collection<Long> itemRequestIds = itemRequests.stream().map(ItemRequest::getId).toList();
-        Collection<Item> items = itemRepository.findAllByRequestIdIn(itemRequestIds);
+    private Collection<ItemRequestDetailedDto> formatRequests(Collection<ItemRequestRow> itemRequests) {
+        Collection<Long> itemRequestIds = itemRequests.stream().map(ItemRequestRow::id).toList();
+        Collection<RequestedItemRow> items = itemRepository.findRequestedItems(itemRequestIds);
 
-        Map<Long, List<Item>> itemsByRequestId = items.stream()
-                .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+        Map<Long, List<RequestedItemRow>> itemsByRequestId = items.stream()
+                .collect(Collectors.groupingBy(RequestedItemRow::requestId));
 
         return itemRequests.stream()
                 .map(itemRequest -> toItemRequestDetailedDto(itemRequest)
-                        .withItems(toRequestedItemsDto(itemsByRequestId.getOrDefault(itemRequest.getId(), List.of())))
+                        .withItems(toRequestedItemsDto(itemsByRequestId.getOrDefault(itemRequest.id(), List.of())))
                 )
                 .toList();
     }
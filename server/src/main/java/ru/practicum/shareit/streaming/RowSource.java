@@ -0,0 +1,8 @@
+package ru.practicum.shareit.streaming;
+
+import java.util.function.Consumer;
+
+@FunctionalInterface
+public interface RowSource<T> {
+    void forEach(Consumer<? super T> action);
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.streaming;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.datasource.ReadYourWrites;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Component
+public class RowSources {
+    private final TransactionTemplate replicaTransaction;
+    private final TransactionTemplate primaryTransaction;
+
+    public RowSources(PlatformTransactionManager transactionManager) {
+        this.replicaTransaction = new TransactionTemplate(transactionManager);
+        this.replicaTransaction.setReadOnly(true);
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public <R, T> RowSource<T> of(Supplier<Stream<R>> query, Function<R, T> mapper) {
+        return chunked(query, 1, chunk -> List.of(mapper.apply(chunk.getFirst())));
+    }
+
+    public <R, T> RowSource<T> chunked(Supplier<Stream<R>> query, int chunkSize, Function<List<R>, List<T>> mapper) {
+        TransactionTemplate transaction = ReadYourWrites.isPinned() ? primaryTransaction : replicaTransaction;
+        return action -> transaction.executeWithoutResult(status -> {
+            try (Stream<R> rows = query.get()) {
+                Iterator<R> iterator = rows.iterator();
+                List<R> chunk = new ArrayList<>(chunkSize);
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                        mapper.apply(chunk).forEach(action);
+                        chunk.clear();
+                    }
+                }
+            }
+        });
+    }
+}
@@ -3,16 +3,20 @@ package ru.practicum.shareit.user;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.version.ETags;
 
 @Slf4j
 @RestController
@@ -22,21 +26,26 @@ public class UserController {
     private final UserService service;
 
     @GetMapping("/{id}")
-    public UserDto get(@PathVariable long id) {
+    public ResponseEntity<UserDto> get(@PathVariable long id) {
         log.info("Запрос пользователя по id: {}", id);
-        return service.findById(id);
+        UserDto user = service.findById(id);
+        return ETags.withVersion(user, user.getVersion());
     }
 
     @PostMapping()
-    public UserDto create(@RequestBody @Valid UserDto userDto) {
+    public ResponseEntity<UserDto> create(@RequestBody @Valid UserDto userDto) {
         log.info("Создание пользователя: {}", userDto);
-        return service.create(userDto);
+        UserDto user = service.create(userDto);
+        return ETags.withVersion(user, user.getVersion());
     }
 
     @PatchMapping("/{id}")
-    public UserDto update(@PathVariable long id, @RequestBody UserDto userDto) {
+    public ResponseEntity<UserDto> update(@PathVariable long id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @RequestBody UserDto userDto) {
         log.info("Обновление пользователя: {}", userDto);
-        return service.update(id, userDto);
+        UserDto user = service.update(id, userDto, ETags.expectedVersion(ifMatch));
+        return ETags.withVersion(user, user.getVersion());
     }
 
     @DeleteMapping("/{id}")
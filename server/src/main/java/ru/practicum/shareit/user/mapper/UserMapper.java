@@ -3,6 +3,7 @@ package ru.practicum.shareit.user.mapper;
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserRow;
 
 @UtilityClass
 public class UserMapper {
@@ -10,15 +11,21 @@ public class UserMapper {
         return new UserDto(
                 user.getId(),
                 user.getName(),
-                user.getEmail()
+                user.getEmail(),
+                user.getVersion()
         );
     }
 
+    public UserDto toUserDto(UserRow row) {
+        return new UserDto(row.id(), row.name(), row.email(), row.version());
+    }
+
     public User toUser(UserDto userDto) {
         return new User(
                 userDto.getId(),
                 userDto.getName(),
-                userDto.getEmail()
+                userDto.getEmail(),
+                null
         );
     }
 }
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.user.repository;
+
+import ru.practicum.shareit.user.dto.UserRow;
+
+import java.util.Optional;
+
+public interface UserWriteRepository {
+    Optional<UserRow> updatePartially(long userId, Long expectedVersion, String name, String email);
+}
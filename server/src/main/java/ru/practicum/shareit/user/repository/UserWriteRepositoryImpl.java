@@ -0,0 +1,63 @@
+package ru.practicum.shareit.user.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.shareit.jdbc.ReturningUpdates;
+import ru.practicum.shareit.user.dto.UserRow;
+import ru.practicum.shareit.user.exception.EmailInUseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class UserWriteRepositoryImpl implements UserWriteRepository {
+    private static final String COLUMNS = "id, name, email, version";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM users WHERE id = :userId";
+    private static final String VERSION_MATCHES = " AND version = :version";
+    private static final RowMapper<UserRow> ROW_MAPPER = (rs, rowNum) ->
+            new UserRow(rs.getLong("id"), rs.getString("name"), rs.getString("email"), rs.getLong("version"));
+
+    private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ReturningUpdates returningUpdates;
+
+    @Override
+    public Optional<UserRow> updatePartially(long userId, Long expectedVersion, String name, String email) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("userId", userId);
+        String versionCondition = "";
+        if (expectedVersion != null) {
+            versionCondition = VERSION_MATCHES;
+            parameters.addValue("version", expectedVersion);
+        }
+        List<String> assignments = new ArrayList<>();
+        if (name != null) {
+            assignments.add("name = :name");
+            parameters.addValue("name", name);
+        }
+        if (email != null) {
+            assignments.add("email = :email");
+            parameters.addValue("email", email);
+        }
+
+        entityManager.flush();
+        List<UserRow> rows;
+        try {
+            if (assignments.isEmpty()) {
+                rows = jdbcTemplate.query(SELECT + versionCondition, parameters, ROW_MAPPER);
+            } else {
+                assignments.add("version = version + 1");
+                rows = returningUpdates.update("UPDATE users SET " + String.join(", ", assignments)
+                        + " WHERE id = :userId" + versionCondition, COLUMNS, SELECT, parameters, ROW_MAPPER);
+            }
+        } catch (DuplicateKeyException e) {
+            throw new EmailInUseException();
+        }
+        entityManager.clear();
+        return rows.stream().findFirst();
+    }
+}
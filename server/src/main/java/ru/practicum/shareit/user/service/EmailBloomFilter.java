@@ -0,0 +1,170 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+public class EmailBloomFilter {
+    private static final String CHECKS_METRIC = "shareit.users.email-filter.checks";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry registry;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final boolean buildOnStartup;
+    private final AtomicLong staleEntries = new AtomicLong();
+    private volatile Bits bits;
+    private volatile Bits building;
+
+    public EmailBloomFilter(JdbcTemplate jdbcTemplate,
+                            MeterRegistry registry,
+                            @Value("${shareit.users.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${shareit.users.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${shareit.startup.database-tasks.enabled:true}") boolean buildOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.registry = registry;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.buildOnStartup = buildOnStartup;
+        this.bits = new Bits(expectedInsertions, falsePositiveRate);
+        Gauge.builder("shareit.users.email-filter.bytes", this, filter -> filter.bits.sizeInBytes())
+                .register(registry);
+        Gauge.builder("shareit.users.email-filter.expected-fpp", this, filter -> filter.bits.expectedFpp())
+                .register(registry);
+        Gauge.builder("shareit.users.email-filter.stale-entries", staleEntries, AtomicLong::get)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!buildOnStartup) {
+            markStale();
+            return;
+        }
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.users.email-filter.rebuild-interval:PT1H}",
+            initialDelayString = "${shareit.users.email-filter.rebuild-interval:PT1H}")
+    public void refresh() {
+        Bits current = bits;
+        if (staleEntries.get() > 0 || current.insertions.get() > current.capacity) {
+            rebuild();
+        }
+    }
+
+    public boolean mightContain(String email) {
+        boolean result = bits.mightContain(email);
+        registry.counter(CHECKS_METRIC, "result", result ? "maybe_present" : "definitely_new").increment();
+        return result;
+    }
+
+    public void falsePositive() {
+        registry.counter(CHECKS_METRIC, "result", "false_positive").increment();
+    }
+
+    public void add(String email) {
+        bits.put(email);
+        Bits next = building;
+        if (next != null) {
+            next.put(email);
+        }
+    }
+
+    public void markStale() {
+        staleEntries.incrementAndGet();
+    }
+
+    void rebuild() {
+        long stale = staleEntries.get();
+        Long users = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        Bits next = new Bits(Math.max(expectedInsertions, 2 * (users == null ? 0 : users)), falsePositiveRate);
+        building = next;
+        try {
+            jdbcTemplate.query("SELECT email FROM users", rs -> {
+                next.put(rs.getString(1));
+            });
+            bits = next;
+            staleEntries.addAndGet(-stale);
+        } finally {
+            building = null;
+        }
+        log.info("Фильтр email перестроен: адресов {}, размер {} КБ, ожидаемая доля ложных срабатываний {}",
+                next.insertions.get(), next.sizeInBytes() / 1024, String.format("%.4f", next.expectedFpp()));
+    }
+
+    static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final long capacity;
+        private final AtomicLong insertions = new AtomicLong();
+
+        Bits(long capacity, double falsePositiveRate) {
+            long n = Math.max(1, capacity);
+            long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+            this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64));
+            this.size = (long) words.length() * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+            this.capacity = n;
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1);
+            for (int i = 0; i < hashes; i++) {
+                long index = ((h1 + i * h2) & Long.MAX_VALUE) % size;
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1);
+            for (int i = 0; i < hashes; i++) {
+                long index = ((h1 + i * h2) & Long.MAX_VALUE) % size;
+                long mask = 1L << index;
+                words.getAndUpdate((int) (index >>> 6), word -> word | mask);
+            }
+            insertions.incrementAndGet();
+        }
+
+        long sizeInBytes() {
+            return size / 8;
+        }
+
+        double expectedFpp() {
+            return Math.pow(1 - Math.exp(-hashes * (double) insertions.get() / size), hashes);
+        }
+
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+
+        private static long mix(long value) {
+            value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+            value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return value ^ (value >>> 33);
+        }
+    }
+}
@@ -7,7 +7,7 @@ import ru.practicum.shareit.user.dto.UserDto;
 public interface UserService {
     UserDto create(UserDto userDto);
 
-    UserDto update(long id, UserDto userDto);
+    UserDto update(long id, UserDto userDto, Long expectedVersion);
 
     void delete(long id);
 
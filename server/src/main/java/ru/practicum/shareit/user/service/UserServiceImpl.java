@@ -1,10 +1,14 @@
 package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.repository.BookingViewRepository;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserRow;
 import ru.practicum.shareit.user.exception.EmailInUseException;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.mapper.UserMapper;
@@ -14,36 +18,42 @@ import ru.practicum.shareit.user.repository.UserRepository;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final BookingViewRepository bookingViewRepository;
+    private final EmailBloomFilter emailFilter;
 
     @Override
     @Transactional
     public UserDto create(UserDto newUserDto) {
-        if (userRepository.findByEmail(newUserDto.getEmail()).isPresent()) {
+        String email = newUserDto.getEmail();
+        if (emailFilter.mightContain(email)) {
+            if (userRepository.existsByEmail(email)) {
+                throw new EmailInUseException();
+            }
+            emailFilter.falsePositive();
+        }
+        User createdUser;
+        try {
+            createdUser = userRepository.saveAndFlush(UserMapper.toUser(newUserDto));
+        } catch (DataIntegrityViolationException e) {
             throw new EmailInUseException();
         }
-        User user = UserMapper.toUser(newUserDto);
-        User createdUser = userRepository.save(user);
+        emailFilter.add(email);
         return UserMapper.toUserDto(createdUser);
     }
 
     @Override
     @Transactional
-    public UserDto update(long id, UserDto update) {
-        User existingUser = getUser(id);
-        if (update.getEmail() != null && !update.getEmail().equals(existingUser.getEmail())) {
-            userRepository.findByEmail(update.getEmail())
-                    .ifPresent(user -> {
-                        if (user.getId() != id) {
-                            throw new EmailInUseException();
-                        }
-                    });
-            existingUser.setEmail(update.getEmail());
-        }
-        if (update.getName() != null && !update.getName().equals(existingUser.getName())) {
-            existingUser.setName(update.getName());
+    public UserDto update(long id, UserDto update, Long expectedVersion) {
+        UserRow updated = userRepository.updatePartially(id, expectedVersion, update.getName(), update.getEmail())
+                .orElseThrow(() -> userRepository.existsById(id)
+                        ? new PreconditionFailedException("Пользователь " + id + " был изменен другим запросом")
+                        : new UserNotFoundException(id));
+        if (update.getEmail() != null) {
+            emailFilter.add(updated.email());
+            emailFilter.markStale();
         }
-        User updatedUser = userRepository.save(existingUser);
-        return UserMapper.toUserDto(updatedUser);
+        bookingViewRepository.updateBooker(updated.id(), updated.name(), updated.email());
+        return UserMapper.toUserDto(updated);
     }
 
     @Override
@@ -51,6 +61,7 @@ public class UserServiceImpl implements UserService {
     public void delete(long id) {
         getUser(id);
         userRepository.deleteById(id);
+        emailFilter.markStale();
     }
 
     @Override
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.version;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.BusinessException;
+
+@UtilityClass
+public class ETags {
+    public <T> ResponseEntity<T> withVersion(T body, Long version) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (version != null) {
+            response.eTag(String.valueOf(version));
+        }
+        return response.body(body);
+    }
+
+    public Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new BusinessException("Некорректный заголовок If-Match: " + ifMatch);
+        }
+    }
+}
@@ -1,7 +1,8 @@
 CREATE TABLE IF NOT EXISTS users (
-    id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    name  VARCHAR(255) NOT NULL,
-    email VARCHAR(255) NOT NULL UNIQUE
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name    VARCHAR(255) NOT NULL,
+    email   VARCHAR(255) NOT NULL UNIQUE,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS requests (
@@ -9,10 +10,13 @@ CREATE TABLE IF NOT EXISTS requests (
     description  VARCHAR(512) NOT NULL,
     requester_id BIGINT NOT NULL,
     created      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    version      BIGINT NOT NULL DEFAULT 0,
 
     CONSTRAINT requester_fk FOREIGN KEY (requester_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS requests_created_id_idx ON requests (created DESC, id DESC);
+
 CREATE TABLE IF NOT EXISTS items (
     id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name         VARCHAR(255) NOT NULL,
@@ -20,11 +24,15 @@ CREATE TABLE IF NOT EXISTS items (
     is_available BOOLEAN NOT NULL,
     owner_id     BIGINT NOT NULL,
     request_id   BIGINT,
+    version      BIGINT NOT NULL DEFAULT 0,
 
     CONSTRAINT items_owner_fk FOREIGN KEY (owner_id) REFERENCES users(id) ON DELETE CASCADE,
     CONSTRAINT items_request_fk FOREIGN KEY (request_id) REFERENCES requests(id)
 );
 
+-- With shareit.booking.partitioning.enabled=true, BookingPartitionManager rebuilds this table on Postgres
+-- as a partitioned table (PK (id, end_date)) and creates bookings_archive. Those definitions live in Java
+-- (CREATE_PARTITIONED, CREATE_ARCHIVE and the indexes in convert()) and must be changed together with this one.
 CREATE TABLE IF NOT EXISTS bookings (
     id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
@@ -32,11 +40,21 @@ CREATE TABLE IF NOT EXISTS bookings (
     item_id    BIGINT NOT NULL,
     booker_id  BIGINT NOT NULL,
     status     VARCHAR(64) NOT NULL,
+    version    BIGINT NOT NULL DEFAULT 0,
 
     CONSTRAINT bookings_item_fk FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE,
     CONSTRAINT bookings_booker_fk FOREIGN KEY (booker_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE requests ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS bookings_status_start_idx ON bookings (status, start_date);
+CREATE INDEX IF NOT EXISTS bookings_item_id_idx ON bookings (item_id, id);
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id);
+
 CREATE TABLE IF NOT EXISTS comments (
     id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     text      VARCHAR(512) NOT NULL,
@@ -46,4 +64,83 @@ CREATE TABLE IF NOT EXISTS comments (
 
     CONSTRAINT comments_item_fk FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE,
     CONSTRAINT comments_author_fk FOREIGN KEY (author_id) REFERENCES users(id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS booking_view (
+    booking_id       BIGINT PRIMARY KEY,
+    start_date       TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date         TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    status           VARCHAR(64) NOT NULL,
+    item_id          BIGINT NOT NULL,
+    item_name        VARCHAR(255) NOT NULL,
+    item_description VARCHAR(512) NOT NULL,
+    item_available   BOOLEAN NOT NULL,
+    item_request_id  BIGINT,
+    owner_id         BIGINT NOT NULL,
+    booker_id        BIGINT NOT NULL,
+    booker_name      VARCHAR(255) NOT NULL,
+    booker_email     VARCHAR(255) NOT NULL,
+    version          BIGINT NOT NULL DEFAULT 0,
+
+    CONSTRAINT booking_view_item_fk FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE,
+    CONSTRAINT booking_view_booker_fk FOREIGN KEY (booker_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+ALTER TABLE booking_view ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS booking_view_booker_start_idx ON booking_view (booker_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS booking_view_owner_start_idx ON booking_view (owner_id, start_date DESC);
+
+INSERT INTO booking_view (booking_id, start_date, end_date, status, item_id, item_name, item_description,
+                          item_available, item_request_id, owner_id, booker_id, booker_name, booker_email, version)
+SELECT b.id, b.start_date, b.end_date, b.status, i.id, i.name, i.description,
+       i.is_available, i.request_id, i.owner_id, u.id, u.name, u.email, b.version
+FROM bookings b
+JOIN items i ON i.id = b.item_id
+JOIN users u ON u.id = b.booker_id
+WHERE NOT EXISTS (SELECT 1 FROM booking_view v WHERE v.booking_id = b.id);
+
+UPDATE booking_view v SET version = (SELECT b.version FROM bookings b WHERE b.id = v.booking_id)
+WHERE v.version <> (SELECT b.version FROM bookings b WHERE b.id = v.booking_id);
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_type VARCHAR(64) NOT NULL,
+    aggregate_id   BIGINT NOT NULL,
+    event_type     VARCHAR(64) NOT NULL,
+    payload        VARCHAR NOT NULL,
+    created_at     TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    published_at   TIMESTAMP WITHOUT TIME ZONE,
+    attempts       INTEGER NOT NULL DEFAULT 0,
+    last_error     VARCHAR(1024),
+    dead_at        TIMESTAMP WITHOUT TIME ZONE,
+    claimed_until  TIMESTAMP WITHOUT TIME ZONE
+);
+
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS last_error VARCHAR(1024);
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS dead_at TIMESTAMP WITHOUT TIME ZONE;
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP WITHOUT TIME ZONE;
+ALTER TABLE outbox_events ALTER COLUMN payload SET DATA TYPE VARCHAR;
+
+CREATE INDEX IF NOT EXISTS outbox_events_published_idx ON outbox_events (published_at, id);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    user_id      BIGINT NOT NULL,
+    idem_key     VARCHAR(255) NOT NULL,
+    request_path VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64),
+    status       INTEGER,
+    content_type VARCHAR(255),
+    etag         VARCHAR(64),
+    body         BYTEA,
+    created_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    expires_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+
+    CONSTRAINT idempotency_keys_pkey PRIMARY KEY (user_id, idem_key)
+);
+
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS etag VARCHAR(64);
+
+CREATE INDEX IF NOT EXISTS idempotency_keys_expires_idx ON idempotency_keys (expires_at);
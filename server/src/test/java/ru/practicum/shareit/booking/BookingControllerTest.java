@@ -6,13 +6,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.services.BookingEventStream;
+import ru.practicum.shareit.booking.services.BookingExportService;
 import ru.practicum.shareit.booking.services.BookingService;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.streaming.JsonArrayResponses;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
@@ -22,12 +27,16 @@ import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+@Import(JsonArrayResponses.class)
 @WebMvcTest(controllers = BookingController.class)
 class BookingControllerTest {
     @Autowired
@@ -36,6 +45,10 @@ class BookingControllerTest {
     private ObjectMapper mapper;
     @MockBean
     private BookingService bookingService;
+    @MockBean
+    private BookingEventStream bookingEventStream;
+    @MockBean
+    private BookingExportService bookingExportService;
 
     private final LocalDateTime fixedTime = LocalDateTime.of(2023, 10, 5, 12, 0);
     private BookingDto bookingDto;
@@ -44,8 +57,8 @@ class BookingControllerTest {
     @BeforeEach
     void setUp() {
         bookingDto = new BookingDto(1L, fixedTime, fixedTime.plusHours(1), null, null, null);
-        ItemDto itemDto = new ItemDto(1L, "Test Item", "Test Description", true, null, null, null, null);
-        UserDto userDto = new UserDto(1L, "Test User", "test@example.com");
+        ItemDto itemDto = new ItemDto(1L, "Test Item", "Test Description", true, null, null, null, null, null);
+        UserDto userDto = new UserDto(1L, "Test User", "test@example.com", null);
 
         bookingResponseDto = BookingResponseDto.builder()
                 .id(1L)
@@ -76,7 +89,7 @@ class BookingControllerTest {
     @Test
     void approveTest() throws Exception {
         bookingResponseDto.setStatus(BookingStatus.APPROVED);
-        when(bookingService.approve(anyLong(), anyBoolean(), anyLong())).thenReturn(bookingResponseDto);
+        when(bookingService.approve(anyLong(), anyBoolean(), anyLong(), any())).thenReturn(bookingResponseDto);
 
         mvc.perform(patch("/bookings/{bookingId}", 1L)
                         .header("X-Sharer-User-Id", 1L)
@@ -127,4 +140,23 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(bookingResponseDto.getId()), Long.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamOwnerBookingsTest() throws Exception {
+        when(bookingService.streamByOwnerId(1L, "ALL"))
+                .thenReturn(action -> List.of(bookingResponseDto, bookingResponseDto).forEach(action));
+
+        MvcResult result = mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].booker.id", is(bookingResponseDto.getBooker().getId()), Long.class));
+        verify(bookingService, never()).findByOwnerId(anyLong(), anyString());
+    }
+}
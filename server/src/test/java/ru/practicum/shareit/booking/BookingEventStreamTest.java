@@ -0,0 +1,214 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEvent;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.services.BookingEventStream;
+import ru.practicum.shareit.booking.services.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.outbox.OutboxEvent;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.outbox.OutboxRelay;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:shareit-stream;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "shareit.stream.heartbeat=200ms"
+        })
+class BookingEventStreamTest {
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private BookingEventStream eventStream;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        truncate();
+        owner = userRepository.save(User.builder().name("Owner").email("stream-owner@example.com").build());
+        booker = userRepository.save(User.builder().name("Booker").email("stream-booker@example.com").build());
+        item = itemRepository.save(Item.builder()
+                .name("Палатка")
+                .description("Палатка двухместная")
+                .available(true)
+                .owner(owner)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        truncate();
+    }
+
+    private void truncate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY FALSE").executeUpdate();
+            entityManager.createNativeQuery("TRUNCATE TABLE outbox_events").executeUpdate();
+            entityManager.createNativeQuery("TRUNCATE TABLE booking_view").executeUpdate();
+            entityManager.createNativeQuery("TRUNCATE TABLE bookings").executeUpdate();
+            entityManager.createNativeQuery("TRUNCATE TABLE items").executeUpdate();
+            entityManager.createNativeQuery("TRUNCATE TABLE users").executeUpdate();
+            entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY TRUE").executeUpdate();
+        });
+    }
+
+    private Iterator<String> openStream(long userId) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/bookings/stream"))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpResponse<Stream<String>> response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(200, response.statusCode());
+        return response.body().iterator();
+    }
+
+    private String readUntil(Iterator<String> lines, String prefix) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.startsWith(prefix)) {
+                    return line;
+                }
+            }
+            throw new IllegalStateException("Поток закрыт");
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void stream_ShouldPushCreatedAndApprovedEventsToBooker() throws Exception {
+        Iterator<String> lines = openStream(booker.getId());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingResponseDto booking = bookingService.create(BookingDto.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(start.plusDays(1))
+                .build(), booker.getId());
+        bookingService.approve(booking.getId(), true, owner.getId(), null);
+
+        relay.relay();
+
+        assertEquals("event:BOOKING_CREATED", readUntil(lines, "event:"));
+        assertTrue(readUntil(lines, "data:").contains("\"bookingId\":" + booking.getId()));
+        assertEquals("event:BOOKING_APPROVED", readUntil(lines, "event:"));
+        assertTrue(readUntil(lines, "data:").contains("\"status\":\"APPROVED\""));
+    }
+
+    @Test
+    void stream_ShouldSendHeartbeatsWhenIdle() throws Exception {
+        Iterator<String> lines = openStream(owner.getId());
+
+        assertEquals(":heartbeat", readUntil(lines, ":"));
+    }
+
+    @Test
+    void stream_ShouldSkipRedeliveredEvent() throws Exception {
+        Iterator<String> lines = openStream(booker.getId());
+        OutboxEvent approved = bookingEvent(1_000_001L, OutboxEventType.BOOKING_APPROVED, BookingStatus.APPROVED);
+
+        eventStream.onEvent(approved);
+        eventStream.onEvent(approved);
+        eventStream.onEvent(bookingEvent(1_000_002L, OutboxEventType.BOOKING_CANCELED, BookingStatus.CANCELED));
+
+        assertEquals("id:1000001", readUntil(lines, "id:"));
+        assertEquals("id:1000002", readUntil(lines, "id:"));
+    }
+
+    @Test
+    void stream_ShouldSendOneWellFormedFrameToEveryConnectionOfUser() throws Exception {
+        Iterator<String> first = openStream(owner.getId());
+        Iterator<String> second = openStream(owner.getId());
+
+        eventStream.onEvent(bookingEvent(1_000_003L, OutboxEventType.BOOKING_APPROVED, BookingStatus.APPROVED));
+
+        for (Iterator<String> lines : List.of(first, second)) {
+            List<String> frame = readFrame(lines);
+            assertEquals(4, frame.size(), frame.toString());
+            assertEquals("id:1000003", frame.get(0));
+            assertEquals("event:BOOKING_APPROVED", frame.get(1));
+            assertTrue(frame.get(2).startsWith("data:{") && frame.get(2).endsWith("}"));
+            assertEquals("", frame.get(3));
+        }
+    }
+
+    private List<String> readFrame(Iterator<String> lines) throws Exception {
+        readUntil(lines, "id:1000003");
+        return CompletableFuture.supplyAsync(() -> {
+            List<String> frame = new ArrayList<>(List.of("id:1000003"));
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.startsWith(":")) {
+                    return frame;
+                }
+                frame.add(line);
+            }
+            throw new IllegalStateException("Поток закрыт");
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    private OutboxEvent bookingEvent(long id, OutboxEventType type, BookingStatus status) throws Exception {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateType(type.getAggregateType())
+                .aggregateId(1L)
+                .eventType(type)
+                .payload(mapper.writeValueAsString(
+                        new BookingEvent(1L, item.getId(), owner.getId(), booker.getId(), status)))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.services.BookingExpiryJob;
+import ru.practicum.shareit.booking.services.BookingService;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingExpiryJobTest {
+    @Test
+    void expire_ShouldDrainFullBatchesAndCountProcessedBookings() {
+        BookingService bookingService = mock(BookingService.class);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        when(bookingService.expireStaleWaiting(any(LocalDateTime.class), eq(2))).thenReturn(2, 2, 1);
+
+        new BookingExpiryJob(bookingService, registry, 2).expire();
+
+        verify(bookingService, times(3)).expireStaleWaiting(any(LocalDateTime.class), eq(2));
+        assertEquals(5, registry.counter("shareit.booking.expired").count());
+    }
+}
@@ -0,0 +1,243 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.services.BookingExport;
+import ru.practicum.shareit.booking.services.BookingExportService;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit-export;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "shareit.export.pool-size=1",
+        "shareit.export.fetch-size=2"
+})
+class BookingExportTest {
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingExportService bookingExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private final List<Booking> ownerBookings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        truncate();
+        owner = userRepository.save(User.builder().name("Owner").email("export-owner@example.com").build());
+        User other = userRepository.save(User.builder().name("Other").email("export-other@example.com").build());
+        User booker = userRepository.save(User.builder().name("Иванов, Иван").email("export-booker@example.com").build());
+        Item tent = itemRepository.save(item("Палатка \"Турист\"", owner));
+        Item drill = itemRepository.save(item("Дрель", other));
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        for (int i = 0; i < 5; i++) {
+            ownerBookings.add(bookingRepository.save(booking(tent, booker, start.plusDays(i))));
+            bookingRepository.save(booking(drill, booker, start.plusDays(i)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        truncate();
+        ownerBookings.clear();
+    }
+
+    private void truncate() {
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.execute("TRUNCATE TABLE outbox_events");
+        jdbcTemplate.execute("TRUNCATE TABLE booking_view");
+        jdbcTemplate.execute("TRUNCATE TABLE bookings");
+        jdbcTemplate.execute("TRUNCATE TABLE items");
+        jdbcTemplate.execute("TRUNCATE TABLE users");
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+    }
+
+    private Item item(String name, User itemOwner) {
+        return Item.builder()
+                .name(name)
+                .description(name)
+                .available(true)
+                .owner(itemOwner)
+                .build();
+    }
+
+    private Booking booking(Item item, User booker, LocalDateTime start) {
+        return Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(start.plusHours(2))
+                .status(BookingStatus.APPROVED)
+                .build();
+    }
+
+    private MockHttpServletResponse export(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mvc.perform(builder.header(X_SHARER_USER_ID, owner.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+
+    @Test
+    void csvExportContainsOnlyOwnerBookingsInIdOrder() throws Exception {
+        MockHttpServletResponse response = export(get("/bookings/owner/export").param("format", "csv"));
+
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getContentType().startsWith("text/csv"));
+        assertEquals("id", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("bookings-" + owner.getId() + ".csv"));
+        String[] lines = response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(6, lines.length);
+        assertEquals("id,start,end,status,item_id,item_name,booker_id,booker_name,booker_email", lines[0]);
+        Booking first = ownerBookings.getFirst();
+        assertEquals(first.getId() + ",2024-05-01T10:00,2024-05-01T12:00,APPROVED," + first.getItem().getId()
+                + ",\"Палатка \"\"Турист\"\"\"," + first.getBooker().getId()
+                + ",\"Иванов, Иван\",export-booker@example.com", lines[1]);
+        for (int i = 0; i < ownerBookings.size(); i++) {
+            assertTrue(lines[i + 1].startsWith(ownerBookings.get(i).getId() + ","));
+        }
+    }
+
+    @Test
+    void ndjsonExportResumesFromRange() throws Exception {
+        long from = ownerBookings.get(2).getId();
+        MockHttpServletResponse response = export(get("/bookings/owner/export")
+                .param("format", "ndjson")
+                .header(HttpHeaders.RANGE, "id=" + from + "-"));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("id " + from + "-", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        String[] lines = response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode row = mapper.readTree(lines[i]);
+            assertEquals(ownerBookings.get(i + 2).getId(), row.get("id").asLong());
+            assertEquals("Иванов, Иван", row.get("bookerName").asText());
+        }
+    }
+
+    @Test
+    void csvResumeByAfterIdOmitsHeader() throws Exception {
+        long after = ownerBookings.get(3).getId();
+        MockHttpServletResponse response = export(get("/bookings/owner/export")
+                .param("after", String.valueOf(after)));
+
+        assertEquals(200, response.getStatus());
+        String body = response.getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.startsWith(ownerBookings.get(4).getId() + ","));
+        assertEquals(1, body.split("\n").length);
+    }
+
+    @Test
+    void csvCellsThatLookLikeFormulasAreEscaped() throws Exception {
+        jdbcTemplate.update("UPDATE items SET name = ? WHERE id = ?", "=HYPERLINK(\"http://evil\")",
+                ownerBookings.getFirst().getItem().getId());
+        jdbcTemplate.update("UPDATE users SET name = ?, email = ? WHERE id = ?", "-2+3", "@evil.example.com",
+                ownerBookings.getFirst().getBooker().getId());
+
+        MockHttpServletResponse response = export(get("/bookings/owner/export").param("format", "csv"));
+
+        String firstRow = response.getContentAsString(StandardCharsets.UTF_8).split("\n")[1];
+        assertTrue(firstRow.endsWith(",\"'=HYPERLINK(\"\"http://evil\"\")\","
+                + ownerBookings.getFirst().getBooker().getId() + ",'-2+3,'@evil.example.com"));
+    }
+
+    @Test
+    void unknownFormatAndOwnerAreRejected() throws Exception {
+        mvc.perform(get("/bookings/owner/export")
+                        .header(X_SHARER_USER_ID, owner.getId())
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/bookings/owner/export")
+                        .header(X_SHARER_USER_ID, owner.getId() + 100))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void exportsBeyondPoolSizeAreRejectedUntilPermitIsReleased() throws Exception {
+        StreamingResponseBody first = bookingExportService.exportOwnerBookings(owner.getId(),
+                BookingExportFormat.NDJSON, 0);
+
+        assertThrows(ServiceUnavailableException.class, () -> bookingExportService.exportOwnerBookings(
+                owner.getId(), BookingExportFormat.NDJSON, 0));
+        mvc.perform(get("/bookings/owner/export")
+                        .header(X_SHARER_USER_ID, owner.getId()))
+                .andExpect(status().isServiceUnavailable());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        first.writeTo(out);
+        assertEquals(5, out.toString(StandardCharsets.UTF_8).split("\n").length);
+        bookingExportService.exportOwnerBookings(owner.getId(), BookingExportFormat.CSV, 0)
+                .writeTo(new ByteArrayOutputStream());
+    }
+
+    @Test
+    void cancelledExportReleasesPermitOnceAndNeverWrites() throws Exception {
+        BookingExport cancelled = bookingExportService.exportOwnerBookings(owner.getId(), BookingExportFormat.CSV, 0);
+        cancelled.cancel();
+        cancelled.cancel();
+
+        assertThrows(IllegalStateException.class, () -> cancelled.writeTo(new ByteArrayOutputStream()));
+        BookingExport next = bookingExportService.exportOwnerBookings(owner.getId(), BookingExportFormat.CSV, 0);
+        next.writeTo(new ByteArrayOutputStream());
+        next.cancel();
+
+        BookingExport last = bookingExportService.exportOwnerBookings(owner.getId(), BookingExportFormat.CSV, 0);
+        assertThrows(ServiceUnavailableException.class, () -> bookingExportService.exportOwnerBookings(
+                owner.getId(), BookingExportFormat.CSV, 0));
+        last.cancel();
+    }
+}
@@ -1,33 +1,48 @@
 package ru.practicum.shareit.booking;
 
 import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionOutcome;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.ItemBookingCounts;
+import ru.practicum.shareit.booking.dto.OwnerBookingSummaryDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingViewRepository;
 import ru.practicum.shareit.booking.services.BookingService;
 import ru.practicum.shareit.exception.BusinessException;
 import ru.practicum.shareit.exception.DataConflictException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.services.ItemService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -40,12 +55,21 @@ class BookingServiceTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingViewRepository bookingViewRepository;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private EntityManager entityManager;
 
@@ -59,6 +83,7 @@ class BookingServiceTest {
 
     @BeforeEach
     void setUp() {
+        truncate();
         owner = userRepository.save(User.builder()
                 .name("Owner")
                 .email("owner@example.com")
@@ -90,7 +115,7 @@ class BookingServiceTest {
                 .owner(owner)
                 .build());
 
-        booking1 = bookingRepository.save(Booking.builder()
+        booking1 = saveBooking(Booking.builder()
                 .item(availableItem1)
                 .booker(booker)
                 .start(LocalDateTime.now().minusDays(2))
@@ -98,7 +123,7 @@ class BookingServiceTest {
                 .status(BookingStatus.WAITING)
                 .build());
 
-        booking2 = bookingRepository.save(Booking.builder()
+        booking2 = saveBooking(Booking.builder()
                 .item(availableItem2)
                 .booker(booker)
                 .start(LocalDateTime.now().plusDays(1))
@@ -109,13 +134,24 @@ class BookingServiceTest {
 
     @AfterEach
     void tearDown() {
+        truncate();
+    }
+
+    private void truncate() {
         entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY FALSE").executeUpdate();
+        entityManager.createNativeQuery("TRUNCATE TABLE booking_view").executeUpdate();
         entityManager.createNativeQuery("TRUNCATE TABLE bookings").executeUpdate();
         entityManager.createNativeQuery("TRUNCATE TABLE items").executeUpdate();
         entityManager.createNativeQuery("TRUNCATE TABLE users").executeUpdate();
         entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY TRUE").executeUpdate();
     }
 
+    private Booking saveBooking(Booking booking) {
+        Booking saved = bookingRepository.save(booking);
+        bookingViewRepository.save(BookingMapper.toBookingView(saved));
+        return saved;
+    }
+
     private BookingDto createTestBookingDto(Long itemId, LocalDateTime start, LocalDateTime end) {
         return BookingDto.builder()
                 .start(start)
@@ -129,6 +165,7 @@ class BookingServiceTest {
                 .id(user.getId())
                 .name(user.getName())
                 .email(user.getEmail())
+                .version(user.getVersion())
                 .build();
     }
 
@@ -138,6 +175,7 @@ class BookingServiceTest {
                 .name(item.getName())
                 .description(item.getDescription())
                 .available(item.getAvailable())
+                .version(item.getVersion())
                 .build();
     }
 
@@ -190,6 +228,45 @@ class BookingServiceTest {
         assertEquals(availableItem1.getId(), savedBooking.getItem().getId());
     }
 
+    @Test
+    void createAndApprove_ShouldCarryBookingVersionIntoViewResponses() {
+        LocalDateTime now = LocalDateTime.now();
+        BookingResponseDto created = service.create(
+                createTestBookingDto(availableItem1.getId(), now.plusDays(5), now.plusDays(6)), booker.getId());
+
+        assertEquals(0L, created.getVersion());
+
+        BookingResponseDto approved = service.approve(created.getId(), true, owner.getId(), created.getVersion());
+        entityManager.clear();
+
+        BookingResponseDto listed = service.findByBookerId(booker.getId(), "ALL").stream()
+                .filter(booking -> booking.getId().equals(created.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(approved.getVersion(), listed.getVersion());
+        assertEquals(created.getVersion() + 1, listed.getVersion());
+    }
+
+    @Test
+    void createBooking_WhenBookerOrItemNotFound_ShouldThrowNotFound() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThrows(UserNotFoundException.class, () -> service.create(
+                createTestBookingDto(availableItem1.getId(), now.plusDays(1), now.plusDays(2)), 999L));
+        assertThrows(ItemNotFoundException.class, () -> service.create(
+                createTestBookingDto(999L, now.plusDays(1), now.plusDays(2)), booker.getId()));
+    }
+
+    @Test
+    void createBooking_WhenDatesOverlapApprovedBooking_ShouldThrowException() {
+        BookingDto bookingDto = createTestBookingDto(availableItem2.getId(),
+                booking2.getStart().plusHours(1), booking2.getEnd().plusDays(1));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> service.create(bookingDto, booker.getId()));
+        assertEquals("Предмет на эти даты недоступен", exception.getMessage());
+    }
+
     @Test
     void createBooking_WhenItemUnavailable_ShouldThrowException() {
         BookingDto bookingDto = createTestBookingDto(
@@ -216,7 +293,7 @@ class BookingServiceTest {
 
     @Test
     void approve_WhenOwnerApproves_ShouldUpdateStatus() {
-        BookingResponseDto result = service.approve(booking1.getId(), true, owner.getId());
+        BookingResponseDto result = service.approve(booking1.getId(), true, owner.getId(), null);
 
         assertEquals(BookingStatus.APPROVED, result.getStatus());
 
@@ -226,7 +303,7 @@ class BookingServiceTest {
 
     @Test
     void approve_WhenOwnerRejects_ShouldUpdateStatus() {
-        BookingResponseDto result = service.approve(booking1.getId(), false, owner.getId());
+        BookingResponseDto result = service.approve(booking1.getId(), false, owner.getId(), null);
 
         assertEquals(BookingStatus.REJECTED, result.getStatus());
 
@@ -234,10 +311,106 @@ class BookingServiceTest {
         assertEquals(BookingStatus.REJECTED, updatedBooking.getStatus());
     }
 
+    @Test
+    void approve_WhenVersionIsStale_ShouldThrowPreconditionFailed() {
+        long staleVersion = booking1.getVersion() + 1;
+
+        assertThrows(PreconditionFailedException.class,
+                () -> service.approve(booking1.getId(), true, owner.getId(), staleVersion));
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(booking1.getId()).orElseThrow().getStatus());
+    }
+
     @Test
     void approve_WhenStatusNotWaiting_ShouldThrowException() {
         assertThrows(BusinessException.class,
-                () -> service.approve(booking2.getId(), true, owner.getId()));
+                () -> service.approve(booking2.getId(), true, owner.getId(), null));
+    }
+
+    @Test
+    void approveAll_ShouldApplyDecisionsAndReportOutcomePerBooking() {
+        Booking booking3 = saveBooking(Booking.builder()
+                .item(availableItem2)
+                .booker(booker)
+                .start(LocalDateTime.now().plusDays(3))
+                .end(LocalDateTime.now().plusDays(4))
+                .status(BookingStatus.WAITING)
+                .build());
+
+        List<BookingDecisionResultDto> results = service.approveAll(List.of(
+                new BookingDecisionDto(booking1.getId(), true),
+                new BookingDecisionDto(booking3.getId(), false),
+                new BookingDecisionDto(booking2.getId(), false),
+                new BookingDecisionDto(999L, true),
+                new BookingDecisionDto(booking1.getId(), false)), owner.getId());
+
+        assertEquals(List.of(
+                new BookingDecisionResultDto(booking1.getId(), BookingDecisionOutcome.APPLIED, BookingStatus.APPROVED),
+                new BookingDecisionResultDto(booking3.getId(), BookingDecisionOutcome.APPLIED, BookingStatus.REJECTED),
+                new BookingDecisionResultDto(booking2.getId(), BookingDecisionOutcome.NOT_WAITING, BookingStatus.APPROVED),
+                new BookingDecisionResultDto(999L, BookingDecisionOutcome.NOT_FOUND, null),
+                new BookingDecisionResultDto(booking1.getId(), BookingDecisionOutcome.DUPLICATE, null)), results);
+        entityManager.clear();
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(booking1.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(booking3.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingViewRepository.findById(booking3.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void approveAll_WhenDecisionIsIncomplete_ShouldReportInvalidAndApplyTheRest() {
+        List<BookingDecisionResultDto> results = service.approveAll(List.of(
+                new BookingDecisionDto(booking1.getId(), null),
+                new BookingDecisionDto(null, true),
+                new BookingDecisionDto(booking1.getId(), false)), owner.getId());
+
+        assertEquals(List.of(
+                new BookingDecisionResultDto(booking1.getId(), BookingDecisionOutcome.INVALID, null),
+                new BookingDecisionResultDto(null, BookingDecisionOutcome.INVALID, null),
+                new BookingDecisionResultDto(booking1.getId(), BookingDecisionOutcome.APPLIED, BookingStatus.REJECTED)),
+                results);
+        entityManager.clear();
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(booking1.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void approveAll_WhenUserIsNotOwner_ShouldNotChangeBookings() {
+        List<BookingDecisionResultDto> results = service.approveAll(
+                List.of(new BookingDecisionDto(booking1.getId(), true)), booker.getId());
+
+        assertEquals(BookingDecisionOutcome.NOT_FOUND, results.get(0).getOutcome());
+        entityManager.clear();
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(booking1.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void expireStaleWaiting_ShouldCancelOnlyWaitingBookingsThatAlreadyStarted() {
+        Booking startedWaiting = saveBooking(Booking.builder()
+                .item(availableItem2)
+                .booker(booker)
+                .start(LocalDateTime.now().minusHours(1))
+                .end(LocalDateTime.now().plusHours(1))
+                .status(BookingStatus.WAITING)
+                .build());
+        Booking futureWaiting = saveBooking(Booking.builder()
+                .item(availableItem2)
+                .booker(booker)
+                .start(LocalDateTime.now().plusDays(3))
+                .end(LocalDateTime.now().plusDays(4))
+                .status(BookingStatus.WAITING)
+                .build());
+
+        int expired = service.expireStaleWaiting(LocalDateTime.now(), 100);
+
+        assertEquals(2, expired);
+        entityManager.clear();
+        for (Booking stale : List.of(booking1, startedWaiting)) {
+            assertEquals(BookingStatus.CANCELED, bookingRepository.findById(stale.getId()).orElseThrow().getStatus());
+            assertEquals(BookingStatus.CANCELED, bookingViewRepository.findById(stale.getId()).orElseThrow().getStatus());
+        }
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(futureWaiting.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.WAITING,
+                bookingViewRepository.findById(futureWaiting.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(booking2.getId()).orElseThrow().getStatus());
+        assertEquals(0, service.expireStaleWaiting(LocalDateTime.now(), 100));
     }
 
     @Test
@@ -276,9 +449,22 @@ class BookingServiceTest {
         assertTrue(result.stream().anyMatch(b -> b.getId().equals(booking2.getId())));
     }
 
+    @Test
+    void streamByOwnerId_ShouldEmitSameBookingsAsList() {
+        List<BookingResponseDto> streamed = new ArrayList<>();
+        service.streamByOwnerId(owner.getId(), "ALL").forEach(streamed::add);
+
+        assertEquals(service.findByOwnerId(owner.getId(), "ALL"), streamed);
+    }
+
+    @Test
+    void streamByOwnerId_WhenUserNotFound_ShouldThrowBeforeStreaming() {
+        assertThrows(UserNotFoundException.class, () -> service.streamByOwnerId(999L, "ALL"));
+    }
+
     @Test
     void findByOwnerId_WithCurrentStatus_ShouldReturnCurrentBookings() {
-        Booking currentBooking = bookingRepository.save(Booking.builder()
+        Booking currentBooking = saveBooking(Booking.builder()
                 .item(availableItem1)
                 .booker(booker)
                 .start(LocalDateTime.now().minusHours(1))
@@ -318,7 +504,7 @@ class BookingServiceTest {
 
     @Test
     void findByOwnerId_WithRejectedStatus_ShouldReturnRejectedBookings() {
-        service.approve(booking1.getId(), false, owner.getId());
+        service.approve(booking1.getId(), false, owner.getId(), null);
 
         List<BookingResponseDto> result = service.findByOwnerId(owner.getId(), "REJECTED");
 
@@ -335,4 +521,97 @@ class BookingServiceTest {
         assertEquals(booking2.getId(), result.get(0).getId());
         assertEquals(BookingStatus.APPROVED, result.get(0).getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByOwnerId_ShouldIssueSameStatementCountRegardlessOfResultSize() {
+        long fewBookings = countStatements(() -> service.findByOwnerId(owner.getId(), "ALL"));
+
+        for (int i = 0; i < 5; i++) {
+            User anotherBooker = userRepository.save(User.builder()
+                    .name("Booker " + i)
+                    .email("booker" + i + "@example.com")
+                    .build());
+            Item anotherItem = itemRepository.save(Item.builder()
+                    .name("Предмет " + i)
+                    .description("Предмет для брони")
+                    .available(true)
+                    .owner(owner)
+                    .build());
+            saveBooking(Booking.builder()
+                    .item(anotherItem)
+                    .booker(anotherBooker)
+                    .start(LocalDateTime.now().plusDays(i + 3))
+                    .end(LocalDateTime.now().plusDays(i + 4))
+                    .status(BookingStatus.WAITING)
+                    .build());
+        }
+        long manyBookings = countStatements(() -> service.findByOwnerId(owner.getId(), "ALL"));
+
+        assertEquals(2, fewBookings);
+        assertEquals(fewBookings, manyBookings);
+    }
+
+    @Test
+    void findByBookerId_ShouldReflectItemAndBookerUpdates() {
+        LocalDateTime now = LocalDateTime.now();
+        BookingResponseDto created = service.create(
+                createTestBookingDto(availableItem1.getId(), now.plusDays(5), now.plusDays(6)), booker.getId());
+        service.approve(created.getId(), true, owner.getId(), null);
+        itemService.updateItem(availableItem1.getId(), ItemDto.builder().name("Карандаш цветной").build(), owner.getId(), null);
+        userService.update(booker.getId(), UserDto.builder().name("Новое имя").build(), null);
+
+        BookingResponseDto result = service.findByBookerId(booker.getId(), "APPROVED").stream()
+                .filter(b -> b.getId().equals(created.getId()))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(BookingStatus.APPROVED, result.getStatus());
+        assertEquals("Карандаш цветной", result.getItem().getName());
+        assertEquals("Новое имя", result.getBooker().getName());
+        assertEquals(booker.getEmail(), result.getBooker().getEmail());
+    }
+
+    @Test
+    void getOwnerSummary_ShouldCountBookingsByStateAndStatus() {
+        saveBooking(Booking.builder()
+                .item(availableItem1)
+                .booker(booker)
+                .start(LocalDateTime.now().minusDays(1))
+                .end(LocalDateTime.now().plusDays(1))
+                .status(BookingStatus.REJECTED)
+                .build());
+
+        OwnerBookingSummaryDto summary = service.getOwnerSummary(owner.getId(), true);
+
+        assertEquals(3, summary.getAll());
+        assertEquals(1, summary.getCurrent());
+        assertEquals(1, summary.getPast());
+        assertEquals(1, summary.getFuture());
+        assertEquals(1, summary.getWaiting());
+        assertEquals(1, summary.getApproved());
+        assertEquals(1, summary.getRejected());
+        assertEquals(2, summary.getItems().size());
+        ItemBookingCounts item1 = summary.getItems().get(0);
+        assertEquals(availableItem1.getId(), item1.itemId());
+        assertEquals(2, item1.all());
+        assertEquals(1, item1.past());
+        assertEquals(1, item1.current());
+        assertNull(service.getOwnerSummary(owner.getId(), false).getItems());
+    }
+
+    @Test
+    void getOwnerSummary_WhenUserNotFound_ShouldThrowException() {
+        assertThrows(UserNotFoundException.class, () -> service.getOwnerSummary(999L, false));
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
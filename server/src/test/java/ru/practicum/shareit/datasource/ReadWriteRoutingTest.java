@@ -0,0 +1,118 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit-primary;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "shareit.datasource.replicas.urls=" + ReadWriteRoutingTest.REPLICA_URL,
+        "shareit.datasource.replicas.lag-query=SELECT lag_seconds FROM replica_lag",
+        "shareit.datasource.replicas.max-lag=5s",
+        "shareit.datasource.replicas.sticky-window=PT1M"
+})
+class ReadWriteRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:shareit-replica;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReplicaPool replicaPool;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUpReplica() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "shareit", "shareit");
+             Statement statement = connection.createStatement()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+            statement.execute("DROP TABLE IF EXISTS replica_lag");
+            statement.execute("CREATE TABLE replica_lag (lag_seconds DOUBLE PRECISION)");
+            statement.execute("INSERT INTO replica_lag VALUES (0)");
+            statement.execute("MERGE INTO users (id, name, email) KEY (id) VALUES (1, 'Реплика 1', 'user1@mail.ru')");
+            statement.execute("MERGE INTO users (id, name, email) KEY (id) VALUES (2, 'Реплика 2', 'user2@mail.ru')");
+            statement.execute("MERGE INTO users (id, name, email) KEY (id) VALUES (3, 'Реплика 3', 'user3@mail.ru')");
+        }
+        replicaPool.check();
+    }
+
+    private void onReplica(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "shareit", "shareit");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        assertEquals("Реплика 1", userService.findById(1).getName());
+
+        UserDto updated = userService.update(1, UserDto.builder().name("Обновлен").build(), null);
+
+        assertEquals("Обновлен", updated.getName());
+        assertEquals("Реплика 1", userService.findById(1).getName());
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimaryWithinStickyWindow() throws Exception {
+        mvc.perform(patch("/users/{id}", 2)
+                        .header("X-Sharer-User-Id", 2)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Свежее имя\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/users/{id}", 2).header("X-Sharer-User-Id", 2))
+                .andExpect(jsonPath("$.name", is("Свежее имя")));
+        mvc.perform(get("/users/{id}", 2).header("X-Sharer-User-Id", 3))
+                .andExpect(jsonPath("$.name", is("Реплика 2")));
+    }
+
+    @Test
+    void userResourceWritesPinReadsByPathIdWithoutUserHeader() throws Exception {
+        mvc.perform(patch("/users/{id}", 3)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Имя без заголовка\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/users/{id}", 3))
+                .andExpect(jsonPath("$.name", is("Имя без заголовка")));
+    }
+
+    @Test
+    void laggingOrUnavailableReplicaFallsBackToPrimary() throws SQLException {
+        onReplica("UPDATE replica_lag SET lag_seconds = 60");
+        replicaPool.check();
+        assertEquals("Третий", userService.findById(3).getName());
+
+        onReplica("UPDATE replica_lag SET lag_seconds = 1");
+        replicaPool.check();
+        assertEquals("Реплика 3", userService.findById(3).getName());
+
+        onReplica("DROP TABLE replica_lag");
+        replicaPool.check();
+        assertEquals("Третий", userService.findById(3).getName());
+    }
+}
@@ -0,0 +1,363 @@
+package ru.practicum.shareit.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit-vthreads;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.threads.virtual.enabled=true",
+        "shareit.concurrency-gate.permits=2",
+        "shareit.concurrency-gate.wait-timeout=PT30S"
+})
+class VirtualThreadPinningTest {
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int REQUESTS = 60;
+    private static final int GATE_PERMITS = 2;
+    private static final List<String> MONITOR_OWNERS = List.of("org.hibernate.", "com.zaxxer.", "ru.practicum.");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private DatabaseConcurrencyGate gate;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        truncate();
+        owner = userRepository.save(User.builder().name("Owner").email("vthreads-owner@example.com").build());
+        item = itemRepository.save(Item.builder()
+                .name("Палатка")
+                .description("Палатка трехместная")
+                .available(true)
+                .owner(owner)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        truncate();
+    }
+
+    private void truncate() {
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.execute("TRUNCATE TABLE outbox_events");
+        jdbcTemplate.execute("TRUNCATE TABLE booking_view");
+        jdbcTemplate.execute("TRUNCATE TABLE bookings");
+        jdbcTemplate.execute("TRUNCATE TABLE items");
+        jdbcTemplate.execute("TRUNCATE TABLE users");
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+    }
+
+    @Test
+    void requestsQueueOnGateWithoutPinningCarrierThreads() throws Exception {
+        long gatedBefore = registry.get("shareit.gate.wait").timer().count();
+        Queue<RecordedEvent> pinned = new ConcurrentLinkedQueue<>();
+        List<Integer> statuses = new ArrayList<>();
+        AtomicInteger maxActive = new AtomicInteger();
+        int maxWaiting;
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent(PINNED_EVENT, pinned::add);
+            recording.startAsync();
+
+            pinDeliberately();
+            CountDownLatch release = new CountDownLatch(1);
+            List<Thread> holders = holdAllPermits(release);
+            AtomicBoolean sampling = new AtomicBoolean(true);
+            Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+                while (sampling.get()) {
+                    maxActive.accumulateAndGet((int) gauge("shareit.gate.active"), Math::max);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            });
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int i = 0; i < REQUESTS; i++) {
+                    int n = i;
+                    futures.add(executor.submit(() -> request(n)));
+                }
+                maxWaiting = awaitWaiting(REQUESTS);
+                release.countDown();
+                for (Future<Integer> future : futures) {
+                    statuses.add(future.get(1, TimeUnit.MINUTES));
+                }
+            }
+            for (Thread holder : holders) {
+                holder.join();
+            }
+            sampling.set(false);
+            sampler.join();
+            recording.stop();
+        }
+
+        assertTrue(statuses.stream().allMatch(status -> status == 200), statuses.toString());
+        assertEquals(REQUESTS, maxWaiting);
+        assertTrue(maxActive.get() <= GATE_PERMITS, "активных запросов: " + maxActive.get());
+        assertEquals(gatedBefore + GATE_PERMITS + REQUESTS, registry.get("shareit.gate.wait").timer().count());
+        assertTrue(pinned.stream().anyMatch(event -> hasFrame(event, VirtualThreadPinningTest.class.getName())),
+                "JFR не зафиксировал контрольное закрепление потока");
+        List<RecordedEvent> unexpected = pinned.stream()
+                .filter(event -> !hasFrame(event, VirtualThreadPinningTest.class.getName()))
+                .filter(event -> !parkedInsideDriver(event) || holdsApplicationMonitor(event))
+                .toList();
+        assertTrue(unexpected.isEmpty(), () -> unexpected.stream()
+                .map(RecordedEvent::toString)
+                .collect(Collectors.joining("\n")));
+    }
+
+    @Test
+    void saturatedGateRejectsWithServiceUnavailable() throws Exception {
+        DatabaseConcurrencyGate gate = new DatabaseConcurrencyGate(1, Duration.ofMillis(100), mapper,
+                new SimpleMeterRegistry());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                gate.doFilter(new MockHttpServletRequest("GET", "/users/1"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            entered.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        gate.doFilter(new MockHttpServletRequest("GET", "/users/1"), rejected,
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(200));
+        MockHttpServletResponse actuator = new MockHttpServletResponse();
+        gate.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), actuator,
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(200));
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString(StandardCharsets.UTF_8).contains("Сервер перегружен"));
+        assertEquals(200, actuator.getStatus());
+
+        release.countDown();
+        holder.join();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        gate.doFilter(new MockHttpServletRequest("GET", "/users/1"), admitted,
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(200));
+        assertEquals(200, admitted.getStatus());
+    }
+
+    @Test
+    void asyncStreamHoldsPermitUntilBodyFinishes() throws Exception {
+        DatabaseConcurrencyGate gate = new DatabaseConcurrencyGate(1, Duration.ofMillis(100), mapper,
+                new SimpleMeterRegistry());
+        MockHttpServletRequest stream = new MockHttpServletRequest("GET", "/bookings");
+        stream.setAsyncSupported(true);
+        gate.doFilter(stream, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        MockHttpServletResponse whileStreaming = new MockHttpServletResponse();
+        gate.doFilter(new MockHttpServletRequest("GET", "/users/1"), whileStreaming,
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(200));
+        assertEquals(503, whileStreaming.getStatus());
+
+        stream.getAsyncContext().complete();
+        stream.getAsyncContext().complete();
+        MockHttpServletRequest events = new MockHttpServletRequest("GET", "/bookings/stream");
+        events.setAsyncSupported(true);
+        gate.doFilter(events, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+        gate.doFilter(new MockHttpServletRequest("GET", "/users/1"), nested, (outer, outerResponse) ->
+                gate.doFilter(new MockHttpServletRequest("GET", "/users/2"), outerResponse,
+                        (inner, innerResponse) -> ((MockHttpServletResponse) innerResponse).setStatus(200)));
+        assertEquals(503, nested.getStatus(), "после двойного завершения должен освободиться ровно один пропуск");
+    }
+
+    @Test
+    void streamingEndpointKeepsGatePermitUntilAsyncCompletes() throws Exception {
+        MvcResult result = mvc.perform(get("/bookings/owner")
+                        .param("stream", "true")
+                        .header(X_SHARER_USER_ID, owner.getId()))
+                .andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        assertEquals(1.0, registry.get("shareit.gate.active").gauge().value());
+
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        assertEquals(0.0, registry.get("shareit.gate.active").gauge().value());
+    }
+
+    private int request(int n) throws Exception {
+        MockHttpServletResponse response = switch (n % 3) {
+            case 0 -> mvc.perform(get("/users/{id}", owner.getId())).andReturn().getResponse();
+            case 1 -> mvc.perform(get("/items/{id}", item.getId())
+                    .header(X_SHARER_USER_ID, owner.getId())).andReturn().getResponse();
+            default -> mvc.perform(post("/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"User " + n + "\",\"email\":\"vthreads-" + n + "@example.com\"}"))
+                    .andReturn().getResponse();
+        };
+        return response.getStatus();
+    }
+
+    private List<Thread> holdAllPermits(CountDownLatch release) throws InterruptedException {
+        CountDownLatch held = new CountDownLatch(GATE_PERMITS);
+        List<Thread> holders = new ArrayList<>();
+        for (int i = 0; i < GATE_PERMITS; i++) {
+            holders.add(Thread.ofVirtual().start(() -> {
+                try {
+                    gate.doFilter(new MockHttpServletRequest("GET", "/users/" + owner.getId()),
+                            new MockHttpServletResponse(), (request, response) -> {
+                                held.countDown();
+                                try {
+                                    release.await();
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            });
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        assertTrue(held.await(10, TimeUnit.SECONDS));
+        return holders;
+    }
+
+    private int awaitWaiting(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        int waiting = (int) gauge("shareit.gate.waiting");
+        while (waiting < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            waiting = (int) gauge("shareit.gate.waiting");
+        }
+        return waiting;
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+
+    private void pinDeliberately() throws InterruptedException {
+        Object monitor = new Object();
+        Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+    }
+
+    private static boolean parkedInsideDriver(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return false;
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("org.h2.")) {
+                return true;
+            }
+            if (!isJdk(type)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean holdsApplicationMonitor(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return false;
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (Modifier.isSynchronized(frame.getMethod().getModifiers())
+                    && MONITOR_OWNERS.stream().anyMatch(type::startsWith)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isJdk(String type) {
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    private static boolean hasFrame(RecordedEvent event, String prefix) {
+        if (event.getStackTrace() == null) {
+            return false;
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
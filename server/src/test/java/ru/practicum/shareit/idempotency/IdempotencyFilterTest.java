@@ -0,0 +1,277 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:shareit-idempotency;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+class IdempotencyFilterTest {
+    private static final String X_SHARER_USER_ID = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User booker;
+    private Item item;
+    private String bookingJson;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        truncate();
+        User owner = userRepository.save(User.builder().name("Owner").email("idem-owner@example.com").build());
+        booker = userRepository.save(User.builder().name("Booker").email("idem-booker@example.com").build());
+        item = itemRepository.save(Item.builder()
+                .name("Палатка")
+                .description("Палатка трехместная")
+                .available(true)
+                .owner(owner)
+                .build());
+        BookingDto booking = BookingDto.builder()
+                .itemId(item.getId())
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build();
+        bookingJson = mapper.writeValueAsString(booking);
+    }
+
+    @AfterEach
+    void tearDown() {
+        truncate();
+    }
+
+    private void truncate() {
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.execute("TRUNCATE TABLE idempotency_keys");
+        jdbcTemplate.execute("TRUNCATE TABLE outbox_events");
+        jdbcTemplate.execute("TRUNCATE TABLE booking_view");
+        jdbcTemplate.execute("TRUNCATE TABLE bookings");
+        jdbcTemplate.execute("TRUNCATE TABLE items");
+        jdbcTemplate.execute("TRUNCATE TABLE users");
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+    }
+
+    private MvcResult postBooking(String key) throws Exception {
+        return mvc.perform(post("/bookings")
+                        .header(X_SHARER_USER_ID, booker.getId())
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bookingJson))
+                .andReturn();
+    }
+
+    @Test
+    void repeatedPostReplaysOriginalResponseWithoutCreatingBooking() throws Exception {
+        MvcResult first = postBooking("booking-1");
+        MvcResult second = postBooking("booking-1");
+
+        assertEquals(200, first.getResponse().getStatus());
+        assertEquals(200, second.getResponse().getStatus());
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        assertEquals("true", second.getResponse().getHeader(IdempotencyFilter.REPLAYED));
+        assertEquals("\"0\"", first.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(first.getResponse().getHeader(HttpHeaders.ETAG), second.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForFirstExecution() throws Exception {
+        int clients = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MvcResult>> results = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return postBooking("booking-2");
+            }));
+        }
+        start.countDown();
+
+        List<String> bodies = new ArrayList<>();
+        for (Future<MvcResult> result : results) {
+            MvcResult response = result.get(10, TimeUnit.SECONDS);
+            assertEquals(200, response.getResponse().getStatus());
+            bodies.add(response.getResponse().getContentAsString());
+        }
+        executor.shutdown();
+
+        assertTrue(bodies.stream().allMatch(bodies.getFirst()::equals));
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void keyReusedForAnotherEndpointIsRejected() throws Exception {
+        postBooking("shared-key");
+
+        mvc.perform(post("/items")
+                        .header(X_SHARER_USER_ID, booker.getId())
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, "shared-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Дрель\",\"description\":\"Дрель ударная\",\"available\":true}"))
+                .andExpect(status().isUnprocessableEntity());
+        assertEquals(1, itemRepository.count());
+    }
+
+    @Test
+    void keyReusedWithAnotherBodyIsRejected() throws Exception {
+        postBooking("booking-3");
+        String otherBooking = mapper.writeValueAsString(BookingDto.builder()
+                .itemId(item.getId())
+                .start(LocalDateTime.now().plusDays(3))
+                .end(LocalDateTime.now().plusDays(4))
+                .build());
+
+        mvc.perform(post("/bookings")
+                        .header(X_SHARER_USER_ID, booker.getId())
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, "booking-3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(otherBooking))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED));
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void oversizeBodyIsRejectedBeforeClaimingKey() throws Exception {
+        mvc.perform(post("/bookings")
+                        .header(X_SHARER_USER_ID, booker.getId())
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, "booking-large")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("x".repeat(1024 * 1024 + 1)))
+                .andExpect(status().isPayloadTooLarge());
+
+        assertTrue(idempotencyKeyRepository.find(booker.getId(), "booking-large").isEmpty());
+        assertEquals(0, bookingRepository.count());
+    }
+
+    @Test
+    void keyThatCannotBeClaimedOrFoundGivesUpAtDeadline() throws Exception {
+        IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+        when(repository.tryClaim(anyLong(), anyString(), anyString(), anyString(), any(), any(), any()))
+                .thenReturn(false);
+        when(repository.find(anyLong(), anyString())).thenReturn(Optional.empty());
+        IdempotencyFilter filter = new IdempotencyFilter(repository, mapper, new SimpleMeterRegistry(),
+                Duration.ofHours(1), Duration.ofSeconds(30), Duration.ofMillis(100), DataSize.ofKilobytes(1));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookings");
+        request.addHeader(X_SHARER_USER_ID, booker.getId());
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, "contended");
+        request.setContent(bookingJson.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(409, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void cachedBodyIsDeliveredToReadListener() throws Exception {
+        byte[] body = bookingJson.getBytes(StandardCharsets.UTF_8);
+        ServletInputStream in = new CachedBodyRequest(new MockHttpServletRequest(), body).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allRead = new AtomicBoolean();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                read.write(in.readAllBytes());
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allRead.set(in.isFinished());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        assertArrayEquals(body, read.toByteArray());
+        assertTrue(allRead.get());
+    }
+
+    @Test
+    void failedRequestDoesNotKeepKey() throws Exception {
+        mvc.perform(post("/items/{id}/comment", item.getId())
+                        .header(X_SHARER_USER_ID, booker.getId())
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, "comment-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"Отличная палатка\"}"))
+                .andExpect(status().is4xxClientError())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED));
+
+        assertTrue(idempotencyKeyRepository.find(booker.getId(), "comment-1").isEmpty());
+    }
+}
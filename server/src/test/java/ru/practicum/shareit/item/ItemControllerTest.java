@@ -6,12 +6,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.services.ItemService;
+import ru.practicum.shareit.streaming.JsonArrayResponses;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -23,6 +25,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -30,10 +33,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
+@Import(JsonArrayResponses.class)
 @WebMvcTest(ItemController.class)
 class ItemControllerTest {
 
@@ -124,7 +129,7 @@ class ItemControllerTest {
     @Test
     void update_ShouldReturnUpdatedItem_WhenValidInput() throws Exception {
         ItemDto updateDto = getTestItemDtoBuilder().name("UpdatedName").build();
-        when(itemService.updateItem(anyLong(), any(ItemDto.class), anyLong())).thenReturn(updateDto);
+        when(itemService.updateItem(anyLong(), any(ItemDto.class), anyLong(), any())).thenReturn(updateDto);
 
         mvc.perform(patch("/items/{itemId}", itemId)
                         .header("X-Sharer-User-Id", userId)
@@ -133,7 +138,24 @@ class ItemControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("UpdatedName"));
 
-        verify(itemService).updateItem(eq(itemId), any(ItemDto.class), eq(userId));
+        verify(itemService).updateItem(eq(itemId), any(ItemDto.class), eq(userId), isNull());
+    }
+
+    @Test
+    void update_ShouldPassIfMatchVersionAndReturnETag() throws Exception {
+        ItemDto updateDto = getTestItemDtoBuilder().name("UpdatedName").version(4L).build();
+        when(itemService.updateItem(anyLong(), any(ItemDto.class), anyLong(), any())).thenReturn(updateDto);
+
+        mvc.perform(patch("/items/{itemId}", itemId)
+                        .header("X-Sharer-User-Id", userId)
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(updateDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        verify(itemService).updateItem(eq(itemId), any(ItemDto.class), eq(userId), eq(3L));
     }
 
     @Test
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.boot.test.json.JacksonTester;
+import org.springframework.boot.test.json.JsonContent;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JsonTest
+class ItemDtoTest {
+    @Autowired
+    private JacksonTester<ItemDto> json;
+
+    @Test
+    void testSerializeSkipsNullFields() throws IOException {
+        ItemDto itemDto = ItemDto.builder()
+                .id(1L)
+                .name("Карандаш")
+                .description("Карандаш грифельный")
+                .available(true)
+                .build();
+
+        JsonContent<ItemDto> result = json.write(itemDto);
+
+        assertThat(result).extractingJsonPathNumberValue("$.id").isEqualTo(1);
+        assertThat(result).extractingJsonPathBooleanValue("$.available").isTrue();
+        assertThat(result).doesNotHaveJsonPath("$.requestId");
+        assertThat(result).doesNotHaveJsonPath("$.lastBooking");
+        assertThat(result).doesNotHaveJsonPath("$.nextBooking");
+        assertThat(result).doesNotHaveJsonPath("$.comments");
+    }
+}
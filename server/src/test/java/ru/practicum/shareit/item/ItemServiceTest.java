@@ -27,6 +27,7 @@ import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -83,6 +84,7 @@ class ItemServiceTest {
     void tearDown() {
         entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY FALSE").executeUpdate();
         entityManager.createNativeQuery("TRUNCATE TABLE comments RESTART IDENTITY").executeUpdate();
+        entityManager.createNativeQuery("TRUNCATE TABLE booking_view").executeUpdate();
         entityManager.createNativeQuery("TRUNCATE TABLE bookings RESTART IDENTITY").executeUpdate();
         entityManager.createNativeQuery("TRUNCATE TABLE items RESTART IDENTITY").executeUpdate();
         entityManager.createNativeQuery("TRUNCATE TABLE users RESTART IDENTITY").executeUpdate();
@@ -129,19 +131,36 @@ class ItemServiceTest {
     @Test
     void updateItem_WhenValidOwner_ShouldUpdateItem() {
         ItemDto updateData = createTestItemDto(null, "Пассатижи", "Здоровенные", true);
-        service.updateItem(item.getId(), updateData, owner.getId());
+        service.updateItem(item.getId(), updateData, owner.getId(), null);
 
         Item updatedItem = itemRepository.findById(item.getId()).orElseThrow();
         assertEquals(updateData.getName(), updatedItem.getName());
         assertEquals(updateData.getDescription(), updatedItem.getDescription());
     }
 
+    @Test
+    void updateItem_WhenOnlyAvailabilityProvided_ShouldKeepOtherFields() {
+        ItemDto updated = service.updateItem(item.getId(), ItemDto.builder().available(false).build(), owner.getId(), null);
+
+        assertEquals(item.getName(), updated.getName());
+        assertEquals(item.getDescription(), updated.getDescription());
+        assertEquals(false, updated.getAvailable());
+        assertEquals(false, itemRepository.findById(item.getId()).orElseThrow().getAvailable());
+    }
+
+    @Test
+    void updateItem_WhenItemNotExist_ShouldThrowException() {
+        ItemDto updateData = ItemDto.builder().name("Пила").build();
+
+        assertThrows(ItemNotFoundException.class, () -> service.updateItem(999L, updateData, owner.getId(), null));
+    }
+
     @Test
     void updateItem_WhenInvalidOwner_ShouldThrowException() {
         ItemDto updateData = createTestItemDto(item.getId(), "Пила", "Жужужу", true);
 
         assertThrows(DataConflictException.class,
-                () -> service.updateItem(item.getId(), updateData, booker.getId()));
+                () -> service.updateItem(item.getId(), updateData, booker.getId(), null));
     }
 
     @Test
@@ -172,6 +191,14 @@ class ItemServiceTest {
         assertTrue(ownerItems.stream().anyMatch(it -> it.getDescription().equals("Два ядра два гига")));
     }
 
+    @Test
+    void streamByOwner_ShouldEmitSameItemsAsList() {
+        List<ItemDto> streamed = new ArrayList<>();
+        service.streamByOwner(owner.getId()).forEach(streamed::add);
+
+        assertEquals(List.copyOf(service.findByOwner(owner.getId())), streamed);
+    }
+
     @Test
     void createComment_WhenValidBooking_ShouldCreateComment() {
         CommentRequestDto commentDto = createTestCommentRequestDto("Суперские инструменты!");
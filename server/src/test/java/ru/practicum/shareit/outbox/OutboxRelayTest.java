@@ -0,0 +1,245 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.services.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class OutboxRelayTest {
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxCleanupJob cleanupJob;
+
+    @Autowired
+    private RecordingSubscriber subscriber;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User owner;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+
+    static class RecordingSubscriber implements OutboxSubscriber {
+        private final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean failNext = new AtomicBoolean();
+        private final AtomicReference<OutboxEventType> poison = new AtomicReference<>();
+        private final AtomicBoolean deliveredInTransaction = new AtomicBoolean();
+
+        @Override
+        public void onEvent(OutboxEvent event) {
+            received.add(event);
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                deliveredInTransaction.set(true);
+            }
+            if (failNext.compareAndSet(true, false) || event.getEventType() == poison.get()) {
+                throw new IllegalStateException("Подписчик недоступен");
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        truncate();
+        subscriber.received.clear();
+        subscriber.poison.set(null);
+        subscriber.deliveredInTransaction.set(false);
+        owner = userRepository.save(User.builder().name("Owner").email("outbox-owner@example.com").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        truncate();
+    }
+
+    private void truncate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY FALSE").executeUpdate();
+            entityManager.createNativeQuery("TRUNCATE TABLE outbox_events").executeUpdate();
+            entityManager.createNativeQuery("TRUNCATE TABLE items").executeUpdate();
+            entityManager.createNativeQuery("TRUNCATE TABLE users").executeUpdate();
+            entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY TRUE").executeUpdate();
+        });
+    }
+
+    private ItemDto createItem() {
+        return itemService.addNewItem(ItemDto.builder()
+                .name("Дрель")
+                .description("Дрель ударная")
+                .available(true)
+                .build(), owner.getId());
+    }
+
+    private List<OutboxEventType> receivedTypes() {
+        return subscriber.received.stream().map(OutboxEvent::getEventType).toList();
+    }
+
+    @Test
+    void relay_ShouldDeliverEventsInOrderAndMarkThemPublished() {
+        ItemDto item = createItem();
+        itemService.updateItem(item.getId(), ItemDto.builder().name("Дрель аккумуляторная").build(), owner.getId(), null);
+
+        relay.relay();
+
+        assertEquals(List.of(OutboxEventType.ITEM_CREATED, OutboxEventType.ITEM_UPDATED), receivedTypes());
+        assertTrue(subscriber.received.stream().allMatch(event -> event.getAggregateId().equals(item.getId())));
+        assertTrue(subscriber.received.getLast().getPayload().contains("Дрель аккумуляторная"));
+        assertTrue(outboxEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() != null));
+    }
+
+    @Test
+    void relay_WhenSubscriberFails_ShouldRedeliverFromFailedEvent() {
+        double failuresBefore = registry.get("shareit.outbox.failed").counter().count();
+        ItemDto item = createItem();
+        itemService.updateItem(item.getId(), ItemDto.builder().available(false).build(), owner.getId(), null);
+        subscriber.failNext.set(true);
+
+        relay.relay();
+
+        assertEquals(List.of(OutboxEventType.ITEM_CREATED), receivedTypes());
+        assertEquals(2, outboxEventRepository.findUnpublished(Pageable.unpaged()).size());
+
+        relay.relay();
+
+        assertEquals(List.of(OutboxEventType.ITEM_CREATED, OutboxEventType.ITEM_CREATED, OutboxEventType.ITEM_UPDATED),
+                receivedTypes());
+        assertTrue(outboxEventRepository.findUnpublished(Pageable.unpaged()).isEmpty());
+        assertEquals(failuresBefore + 1, registry.get("shareit.outbox.failed").counter().count());
+    }
+
+    @Test
+    void relay_WhenEventKeepsFailing_ShouldDeadLetterItAndDeliverLaterEvents() {
+        double deadBefore = registry.get("shareit.outbox.dead").counter().count();
+        ItemDto item = createItem();
+        itemService.updateItem(item.getId(), ItemDto.builder().available(false).build(), owner.getId(), null);
+        subscriber.poison.set(OutboxEventType.ITEM_CREATED);
+
+        for (int i = 0; i < 4; i++) {
+            relay.relay();
+        }
+        assertEquals(2, outboxEventRepository.findUnpublished(Pageable.unpaged()).size());
+
+        relay.relay();
+
+        OutboxEvent poisoned = outboxEventRepository.findAll().stream()
+                .filter(event -> event.getEventType() == OutboxEventType.ITEM_CREATED)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(5, poisoned.getAttempts());
+        assertNotNull(poisoned.getDeadAt());
+        assertTrue(poisoned.getLastError().contains("Подписчик недоступен"));
+        assertEquals(1, receivedTypes().stream().filter(type -> type == OutboxEventType.ITEM_UPDATED).count());
+        assertTrue(outboxEventRepository.findUnpublished(Pageable.unpaged()).isEmpty());
+        assertEquals(deadBefore + 1, registry.get("shareit.outbox.dead").counter().count());
+    }
+
+    @Test
+    void relay_ShouldDeliverOutsideTransactionAndReleaseClaim() {
+        String payload = "x".repeat(10_000);
+        OutboxEvent large = outboxEventRepository.save(event(LocalDateTime.now(), null, payload));
+
+        relay.relay();
+
+        assertEquals(1, subscriber.received.size());
+        assertEquals(payload, subscriber.received.getFirst().getPayload());
+        assertFalse(subscriber.deliveredInTransaction.get());
+        OutboxEvent published = outboxEventRepository.findById(large.getId()).orElseThrow();
+        assertNotNull(published.getPublishedAt());
+        assertNull(published.getClaimedUntil());
+    }
+
+    @Test
+    void relay_WhenBatchIsClaimedByAnotherInstance_ShouldWaitForLeaseToExpire() {
+        OutboxEvent claimed = outboxEventRepository.save(event(LocalDateTime.now(), null));
+        OutboxEvent next = outboxEventRepository.save(event(LocalDateTime.now(), null));
+        outboxEventRepository.claim(List.of(claimed.getId()), LocalDateTime.now().plusMinutes(1));
+
+        relay.relay();
+
+        assertTrue(subscriber.received.isEmpty());
+
+        outboxEventRepository.claim(List.of(claimed.getId()), LocalDateTime.now().minusSeconds(1));
+        relay.relay();
+
+        assertEquals(List.of(claimed.getId(), next.getId()),
+                subscriber.received.stream().map(OutboxEvent::getId).toList());
+        assertTrue(outboxEventRepository.findUnpublished(Pageable.unpaged()).isEmpty());
+    }
+
+    @Test
+    void purge_ShouldDeleteOnlyEventsPublishedBeforeRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEvent old = outboxEventRepository.save(event(now.minusDays(8), now.minusDays(8)));
+        OutboxEvent recent = outboxEventRepository.save(event(now.minusDays(1), now.minusDays(1)));
+        OutboxEvent pending = outboxEventRepository.save(event(now.minusDays(8), null));
+
+        cleanupJob.purge();
+
+        List<Long> remaining = outboxEventRepository.findAll().stream().map(OutboxEvent::getId).sorted().toList();
+        assertEquals(List.of(recent.getId(), pending.getId()), remaining);
+        assertTrue(outboxEventRepository.findById(old.getId()).isEmpty());
+    }
+
+    private OutboxEvent event(LocalDateTime createdAt, LocalDateTime publishedAt) {
+        return event(createdAt, publishedAt, "{}");
+    }
+
+    private OutboxEvent event(LocalDateTime createdAt, LocalDateTime publishedAt, String payload) {
+        return OutboxEvent.builder()
+                .aggregateType(OutboxEventType.ITEM_CREATED.getAggregateType())
+                .aggregateId(1L)
+                .eventType(OutboxEventType.ITEM_CREATED)
+                .payload(payload)
+                .createdAt(createdAt)
+                .publishedAt(publishedAt)
+                .build();
+    }
+}
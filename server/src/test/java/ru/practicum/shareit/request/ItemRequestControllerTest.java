@@ -6,11 +6,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.request.dto.ItemRequestDetailedDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeed;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.streaming.JsonArrayResponses;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
@@ -23,9 +26,11 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+@Import(JsonArrayResponses.class)
 @WebMvcTest(ItemRequestController.class)
 @AutoConfigureMockMvc
 class ItemRequestControllerTest {
@@ -115,15 +120,33 @@ class ItemRequestControllerTest {
         ItemRequestDetailedDto requestDto = getItemRequestDetailedDtoBuilder().build();
         List<ItemRequestDetailedDto> expectedList = List.of(requestDto);
 
-        when(requestService.getOtherUsersRequests(userId)).thenReturn(expectedList);
+        when(requestService.getOtherUsersRequests(userId, null, 20))
+                .thenReturn(new ItemRequestFeed(expectedList, null));
 
         mvc.perform(get("/requests/all")
                         .header("X-Sharer-User-Id", userId))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id").value(requestId));
 
-        verify(requestService).getOtherUsersRequests(userId);
+        verify(requestService).getOtherUsersRequests(userId, null, 20);
+    }
+
+    @Test
+    void findAllUsersItemRequest_ShouldReturnNextCursorHeader_WhenMorePagesExist() throws Exception {
+        ItemRequestDetailedDto requestDto = getItemRequestDetailedDtoBuilder().build();
+
+        when(requestService.getOtherUsersRequests(userId, "abc", 1))
+                .thenReturn(new ItemRequestFeed(List.of(requestDto), "def"));
+
+        mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("cursor", "abc")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "def"))
+                .andExpect(jsonPath("$", hasSize(1)));
     }
 
     @Test
@@ -1,15 +1,21 @@
 package ru.practicum.shareit.request;
 
 import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.BusinessException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDetailedDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeed;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -17,11 +23,16 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -42,6 +53,9 @@ class ItemRequestServiceTest {
     @Autowired
     private ItemRequestRepository itemRequestRepository;
 
+    @Autowired
+    private ItemRepository itemRepository;
+
     @Autowired
     private EntityManager entityManager;
 
@@ -51,10 +65,10 @@ class ItemRequestServiceTest {
     @BeforeEach
     void setUp() {
         requester = userRepository.save(
-                User.builder().id(3L).name("Test Requester").email("requester@example.com").build()
+                User.builder().name("Test Requester").email("requester@example.com").build()
         );
         otherUser = userRepository.save(
-                User.builder().id(4L).name("Other User").email("other@example.com").build()
+                User.builder().name("Other User").email("other@example.com").build()
         );
     }
 
@@ -115,7 +129,8 @@ class ItemRequestServiceTest {
         createTestRequest(otherUser.getId());
         createTestRequest(otherUser.getId());
 
-        Collection<ItemRequestDetailedDto> otherUsersRequests = service.getOtherUsersRequests(requester.getId());
+        Collection<ItemRequestDetailedDto> otherUsersRequests =
+                service.getOtherUsersRequests(requester.getId(), null, 20).getRequests();
 
         assertEquals(2, otherUsersRequests.size());
         assertTrue(otherUsersRequests.stream().noneMatch(r -> r.getRequester().getId().equals(requester.getId())));
@@ -126,8 +141,90 @@ class ItemRequestServiceTest {
         createTestRequest(requester.getId());
         createTestRequest(requester.getId());
 
-        Collection<ItemRequestDetailedDto> otherUsersRequests = service.getOtherUsersRequests(requester.getId());
+        ItemRequestFeed feed = service.getOtherUsersRequests(requester.getId(), null, 20);
+
+        assertTrue(feed.getRequests().isEmpty());
+        assertNull(feed.getNextCursor());
+    }
+
+    @Test
+    void findAllUsersItemRequest_ShouldPageByCursorInCreatedOrder() {
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Long> expectedIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ItemRequest request = itemRequestRepository.save(ItemRequest.builder()
+                    .description(REQUEST_DESCRIPTION)
+                    .requester(otherUser)
+                    .created(i < 2 ? created : created.plusHours(i))
+                    .build());
+            expectedIds.add(0, request.getId());
+        }
+
+        ItemRequestFeed first = service.getOtherUsersRequests(requester.getId(), null, 2);
+        ItemRequestFeed second = service.getOtherUsersRequests(requester.getId(), first.getNextCursor(), 2);
+        ItemRequestFeed third = service.getOtherUsersRequests(requester.getId(), second.getNextCursor(), 2);
+
+        List<Long> actualIds = Stream.of(first, second, third)
+                .flatMap(feed -> feed.getRequests().stream())
+                .map(ItemRequestDetailedDto::getId)
+                .toList();
+        assertEquals(expectedIds, actualIds);
+        assertEquals(1, third.getRequests().size());
+        assertNull(third.getNextCursor());
+    }
+
+    @Test
+    void findAllUsersItemRequest_WhenCursorInvalid_ShouldThrowBusinessException() {
+        assertThrows(BusinessException.class,
+                () -> service.getOtherUsersRequests(requester.getId(), "не-курсор", 20));
+    }
+
+    @Test
+    void requestFeeds_ShouldUseConstantNumberOfStatements_ForThousandRequests() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(userRepository.save(User.builder().name("User " + i).email("user" + i + "@example.com").build()));
+        }
+        Long firstRequestId = null;
+        for (int i = 0; i < 1000; i++) {
+            ItemRequest request = itemRequestRepository.save(ItemRequest.builder()
+                    .description(REQUEST_DESCRIPTION + " " + i)
+                    .requester(i % 2 == 0 ? requester : users.get(i % users.size()))
+                    .created(LocalDateTime.now().minusMinutes(i))
+                    .build());
+            itemRepository.save(Item.builder()
+                    .name("Спальник " + i)
+                    .description("Теплый спальник")
+                    .available(true)
+                    .owner(users.get((i + 1) % users.size()))
+                    .request(request)
+                    .build());
+            if (firstRequestId == null) {
+                firstRequestId = request.getId();
+            }
+        }
+        Long requestId = firstRequestId;
+
+        long userRequestsStatements = countStatements(() ->
+                assertEquals(500, service.getUserRequests(requester.getId()).size()));
+        long feedStatements = countStatements(() ->
+                assertEquals(100, service.getOtherUsersRequests(requester.getId(), null, 100).getRequests().size()));
+        long requestStatements = countStatements(() ->
+                assertEquals(1, service.getRequest(requestId).getItems().size()));
+
+        assertEquals(2, userRequestsStatements);
+        assertEquals(2, feedStatements);
+        assertEquals(2, requestStatements);
+    }
 
-        assertTrue(otherUsersRequests.isEmpty());
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.user.service.EmailBloomFilter;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailBloomFilterTest {
+    private static final int EMAILS = 10_000;
+
+    @Test
+    void addedEmailsAreAlwaysReportedAndFalsePositiveRateStaysNearTarget() {
+        EmailBloomFilter filter = new EmailBloomFilter(null, new SimpleMeterRegistry(), EMAILS, 0.01, false);
+        for (int i = 0; i < EMAILS; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+
+        for (int i = 0; i < EMAILS; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < EMAILS; i++) {
+            if (filter.mightContain("new" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < EMAILS * 0.02, "ложных срабатываний: " + falsePositives);
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -12,6 +14,7 @@ import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -22,6 +25,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -64,19 +68,36 @@ class UserControllerTest {
         verify(userService).findById(userId);
     }
 
+    @Test
+    void getUserById_ShouldReturnSmile_WhenSmileAccepted() throws Exception {
+        MediaType smile = new MediaType("application", "x-jackson-smile");
+        UserDto expectedUser = getUserDtoBuilder().build();
+        when(userService.findById(userId)).thenReturn(expectedUser);
+
+        byte[] body = mvc.perform(get("/users/{id}", userId)
+                        .accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode user = new SmileMapper().readTree(body);
+        assertEquals(userId, user.get("id").asLong());
+        assertEquals(userEmail, user.get("email").asText());
+    }
+
     @Test
     void updateUser_ShouldReturnUpdatedUser_WhenValidInput() throws Exception {
         UserDto updateDto = getUserDtoBuilder().name("Updated Name").build();
         UserDto expectedUser = getUserDtoBuilder().name("Updated Name").build();
 
-        when(userService.update(anyLong(), any(UserDto.class))).thenReturn(expectedUser);
+        when(userService.update(anyLong(), any(UserDto.class), any())).thenReturn(expectedUser);
 
         mvc.perform(patch("/users/{id}", userId)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(updateDto)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name", is("Updated Name")));
-        verify(userService, times(1)).update(anyLong(), any());
+        verify(userService, times(1)).update(anyLong(), any(), any());
     }
 
     @Test
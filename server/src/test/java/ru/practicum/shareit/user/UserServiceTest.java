@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.exception.EmailInUseException;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
@@ -86,7 +87,7 @@ class UserServiceTest {
     void update_ShouldUpdateUserName_WhenNewNameProvided() {
         UserDto userDto = UserMapper.toUserDto(user);
         userDto.setName("Updated Name");
-        service.update(user.getId(), userDto);
+        service.update(user.getId(), userDto, null);
 
         User updatedUser = userRepository.findById(user.getId()).get();
         assertEquals("Updated Name", updatedUser.getName());
@@ -99,7 +100,7 @@ class UserServiceTest {
         String newEmail = "updated@example.com";
         UserDto userDto = UserMapper.toUserDto(user);
         userDto.setEmail(newEmail);
-        service.update(user.getId(), userDto);
+        service.update(user.getId(), userDto, null);
 
         User updatedUser = userRepository.findById(user.getId()).get();
         assertEquals(newEmail, updatedUser.getEmail());
@@ -107,6 +108,32 @@ class UserServiceTest {
         assertEquals(user.getId(), updatedUser.getId());
     }
 
+    @Test
+    void update_ShouldThrowException_WhenEmailBelongsToAnotherUser() {
+        service.create(getUserDtoBuilder().build());
+        UserDto userDto = UserDto.builder().email("test@example.com").build();
+
+        assertThrows(EmailInUseException.class, () -> service.update(user.getId(), userDto, null));
+        assertEquals("ivan@example.com", service.findById(user.getId()).getEmail());
+    }
+
+    @Test
+    void update_ShouldRejectStaleVersion_WhenIfMatchProvided() {
+        UserDto updated = service.update(user.getId(), UserDto.builder().name("Петр").build(), 0L);
+
+        assertEquals(1L, updated.getVersion());
+        assertThrows(PreconditionFailedException.class,
+                () -> service.update(user.getId(), UserDto.builder().name("Сидор").build(), 0L));
+        assertEquals("Петр", service.findById(user.getId()).getName());
+    }
+
+    @Test
+    void update_ShouldThrowException_WhenUserNotExists() {
+        UserDto userDto = UserDto.builder().name("Никто").build();
+
+        assertThrows(UserNotFoundException.class, () -> service.update(999L, userDto, null));
+    }
+
     @Test
     void delete_ShouldRemoveUser_WhenUserExists() {
         service.delete(user.getId());
@@ -124,4 +151,11 @@ class UserServiceTest {
             service.create(duplicareEmailUser);
         });
     }
+
+    @Test
+    void create_ShouldThrowException_WhenEmailWasRegisteredThroughService() {
+        service.create(getUserDtoBuilder().build());
+
+        assertThrows(EmailInUseException.class, () -> service.create(getUserDtoBuilder().name("Другой").build()));
+    }
 }
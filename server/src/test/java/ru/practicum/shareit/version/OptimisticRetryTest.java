@@ -0,0 +1,54 @@
+package ru.practicum.shareit.version;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OptimisticRetryTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private OptimisticRetry retry(int maxAttempts) {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        return new OptimisticRetry(transactionManager, registry, maxAttempts, Duration.ZERO);
+    }
+
+    @Test
+    void execute_ShouldRetryAfterVersionConflict() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry(3).execute("test", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("Booking", 1L);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1, registry.counter("shareit.transaction.retries", "operation", "test").count());
+    }
+
+    @Test
+    void execute_ShouldGiveUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> retry(3).execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Booking", 1L);
+        }));
+        assertEquals(3, attempts.get());
+    }
+}
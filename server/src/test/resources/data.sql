@@ -15,4 +15,13 @@ INSERT INTO items (name,description,is_available,owner_id) VALUES ('Нож','Н
 INSERT INTO bookings (booker_id,item_id,status,start_date,end_date) VALUES (1,2,'WAITING', '2025-06-04 20:09:19.000','2025-06-05 20:09:19.000');
 INSERT INTO bookings (booker_id,item_id,status,start_date,end_date) VALUES (2,1,'APPROVED','2025-06-04 20:09:19.000','2025-06-04 20:19:19.000');
 INSERT INTO bookings (booker_id,item_id,status,start_date,end_date) VALUES (3,4,'APPROVED','2025-06-04 20:09:19.000','2026-07-05 20:09:19.000');
-INSERT INTO bookings (booker_id,item_id,status,start_date,end_date) VALUES (4,1,'APPROVED','2026-06-04 20:09:19.000','2026-07-05 20:09:19.000');
\ No newline at end of file
+INSERT INTO bookings (booker_id,item_id,status,start_date,end_date) VALUES (4,1,'APPROVED','2026-06-04 20:09:19.000','2026-07-05 20:09:19.000');
+
+INSERT INTO booking_view (booking_id, start_date, end_date, status, item_id, item_name, item_description,
+                          item_available, item_request_id, owner_id, booker_id, booker_name, booker_email)
+SELECT b.id, b.start_date, b.end_date, b.status, i.id, i.name, i.description,
+       i.is_available, i.request_id, i.owner_id, u.id, u.name, u.email
+FROM bookings b
+JOIN items i ON i.id = b.item_id
+JOIN users u ON u.id = b.booker_id
+WHERE NOT EXISTS (SELECT 1 FROM booking_view v WHERE v.booking_id = b.id);